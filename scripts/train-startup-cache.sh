@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Builds the app and records a JVM class-loading cache for fast startup.
+#
+#   JDK 24+: an AOT cache (JEP 483) -> target/app/app.aot
+#   JDK 21+: a CDS archive           -> target/app/app.jsa
+#
+# The training run starts the application context with the fast-start profile and exits
+# right after refresh (spring.context.exit=onRefresh), so no database or model server is
+# needed. Start instances with the command printed at the end.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+./mvnw -q -DskipTests package
+rm -rf target/app
+java -Djarmode=tools -jar target/pdf-analyzer-postgres-0.0.1-SNAPSHOT.jar extract --destination target/app
+cd target/app
+
+JAR=pdf-analyzer-postgres-0.0.1-SNAPSHOT.jar
+TRAIN_ARGS=(-Dspring.context.exit=onRefresh -Dspring.profiles.active=fast-start)
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+
+if [ "${JAVA_MAJOR%%.*}" -ge 24 ]; then
+	java -XX:AOTMode=record -XX:AOTConfiguration=app.aotconf "${TRAIN_ARGS[@]}" -jar "$JAR"
+	java -XX:AOTMode=create -XX:AOTConfiguration=app.aotconf -XX:AOTCache=app.aot -jar "$JAR"
+	CACHE_OPT="-XX:AOTCache=app.aot"
+else
+	java -XX:ArchiveClassesAtExit=app.jsa "${TRAIN_ARGS[@]}" -jar "$JAR"
+	CACHE_OPT="-XX:SharedArchiveFile=app.jsa"
+fi
+
+echo
+echo "Run from target/app with:"
+echo "  java $CACHE_OPT -Dspring.profiles.active=fast-start -jar $JAR"
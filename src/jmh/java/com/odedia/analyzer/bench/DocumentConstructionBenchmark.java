@@ -0,0 +1,86 @@
+package com.odedia.analyzer.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.tika.TikaDocumentReader;
+import org.springframework.core.io.FileSystemResource;
+
+import com.odedia.analyzer.file.FileMultipartFile;
+import com.odedia.analyzer.reader.ReadOptions;
+import com.odedia.analyzer.reader.TikaStreamingReader;
+import com.odedia.analyzer.rtl.ExtractionMode;
+import com.odedia.analyzer.rtl.HebrewEnglishPdfPerPageExtractor;
+
+/**
+ * Word ingestion through Tika (whole-document reader vs. the streaming chunk reader), and building the {@link Document} chunks handed to
+ * the vector store, mirroring what {@code DocumentAnalyzerService.analyze} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DocumentConstructionBenchmark {
+
+	private static final String DOCX = "hebrew/Spring Campaign.docx";
+	private static final String PDF = "hebrew/תקנון הכנסת.pdf";
+
+	private FileSystemResource docx;
+	private FileMultipartFile docxUpload;
+	private final TikaStreamingReader streamingReader = new TikaStreamingReader(4000);
+	private List<String> pages;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		docx = new FileSystemResource(SampleCorpus.file(DOCX));
+		docxUpload = new FileMultipartFile(SampleCorpus.file(DOCX));
+		pages = SampleCorpus.rawPages(PDF);
+	}
+
+	@Benchmark
+	public List<Document> tikaDocx() {
+		List<Document> docs = new TikaDocumentReader(docx).read();
+		for (Document doc : docs) {
+			doc.getMetadata().put("filename", DOCX);
+			doc.getMetadata().put("language", HebrewEnglishPdfPerPageExtractor.detectDominantLanguage(doc.getText()));
+		}
+		return docs;
+	}
+
+	@Benchmark
+	public List<Document> streamingDocx() throws IOException {
+		List<Document> docs = new ArrayList<>();
+		streamingReader.read(docxUpload, new ReadOptions(ExtractionMode.TEXT, false), docs::add);
+		return docs;
+	}
+
+	@Benchmark
+	public List<Document> pageDocuments() {
+		List<Document> documents = new ArrayList<>(pages.size());
+		for (String page : pages) {
+			if (!page.trim().isBlank()) {
+				Document doc = new Document(page);
+				doc.getMetadata().put("filename", PDF);
+				doc.getMetadata().put("language", "he");
+				documents.add(doc);
+			}
+		}
+		return documents;
+	}
+}
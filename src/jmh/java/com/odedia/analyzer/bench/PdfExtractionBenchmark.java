@@ -0,0 +1,66 @@
+package com.odedia.analyzer.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.odedia.analyzer.diagnostics.PromptDiagnostics;
+import com.odedia.analyzer.file.FileMultipartFile;
+import com.odedia.analyzer.reader.PdfChunkReader;
+import com.odedia.analyzer.reader.ReadOptions;
+import com.odedia.analyzer.rtl.ExtractionMode;
+
+/**
+ * PDF ingestion path as uploads take it, through {@link PdfChunkReader}: temp file copy,
+ * PDFBox parsing, language detection, per-page cleanup and page documents, each handed on
+ * as soon as its page is extracted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+	@Param({
+		"english/VMwareTanzuLifecycleMatrix.pdf",
+		"english/Everything You Never Wanted to Know About Spring Boot 3 AOT.pdf",
+		"hebrew/hebrew-test.pdf",
+		"hebrew/תנאי ביטוח.pdf",
+		"hebrew/תקנון הכנסת.pdf"
+	})
+	public String sample;
+
+	@Param({ "TEXT", "VISUAL_RTL" })
+	public ExtractionMode mode;
+
+	private final PdfChunkReader reader = new PdfChunkReader(new PromptDiagnostics(0.0, 4000, ""));
+
+	private FileMultipartFile upload;
+	private ReadOptions options;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		upload = new FileMultipartFile(SampleCorpus.file(sample));
+		options = new ReadOptions(mode, false);
+	}
+
+	@Benchmark
+	public String readPages(Blackhole blackhole) throws IOException {
+		return reader.read(upload, options, blackhole::consume);
+	}
+}
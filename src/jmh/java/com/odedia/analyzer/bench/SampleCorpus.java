@@ -0,0 +1,44 @@
+package com.odedia.analyzer.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+/**
+ * Locates the bundled sample documents. Benchmarks run from the project root by
+ * default; override with {@code -Dbench.samples=/path/to/sample-pdfs}.
+ */
+final class SampleCorpus {
+
+	private SampleCorpus() {
+	}
+
+	static File file(String relativePath) {
+		File file = new File(System.getProperty("bench.samples", "sample-pdfs"), relativePath);
+		if (!file.isFile()) {
+			throw new IllegalStateException("Sample document not found: " + file.getAbsolutePath());
+		}
+		return file;
+	}
+
+	/**
+	 * Raw per-page text as PDFBox returns it, used as input for the text-only benchmarks.
+	 */
+	static List<String> rawPages(String relativePath) throws IOException {
+		try (PDDocument document = Loader.loadPDF(file(relativePath))) {
+			PDFTextStripper stripper = new PDFTextStripper();
+			List<String> pages = new ArrayList<>();
+			for (int p = 1; p <= document.getNumberOfPages(); p++) {
+				stripper.setStartPage(p);
+				stripper.setEndPage(p);
+				pages.add(stripper.getText(document));
+			}
+			return pages;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.odedia.analyzer.bench;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.odedia.analyzer.rtl.BidiNormalizer;
+import com.odedia.analyzer.rtl.HebrewEnglishPdfPerPageExtractor;
+import com.odedia.analyzer.rtl.HebrewUtils;
+
+/**
+ * Text-only stages on pre-extracted page text, so PDF parsing cost does not hide them:
+ * whole-document language detection and line-by-line bidi reordering.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TextProcessingBenchmark {
+
+	@Param({
+		"english/Everything You Never Wanted to Know About Spring Boot 3 AOT.pdf",
+		"hebrew/תקנון הכנסת.pdf"
+	})
+	public String sample;
+
+	private String document;
+	private List<String> lines;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		document = String.join("\n", SampleCorpus.rawPages(sample));
+		lines = Arrays.asList(document.split("\\r?\\n"));
+	}
+
+	@Benchmark
+	public String detectDominantLanguage() {
+		return HebrewEnglishPdfPerPageExtractor.detectDominantLanguage(document);
+	}
+
+	@Benchmark
+	public void toLogical(Blackhole bh) {
+		for (String line : lines) {
+			bh.consume(HebrewUtils.toLogical(line));
+		}
+	}
+
+	@Benchmark
+	public String normalizeLines() {
+		return BidiNormalizer.normalizeLines(document);
+	}
+}
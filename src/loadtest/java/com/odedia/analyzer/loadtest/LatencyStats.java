@@ -0,0 +1,42 @@
+package com.odedia.analyzer.loadtest;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects per-request samples in nanoseconds and reports nearest-rank percentiles.
+ */
+class LatencyStats {
+
+	private final String name;
+	private final ConcurrentLinkedQueue<Long> samples = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger errors = new AtomicInteger();
+
+	LatencyStats(String name) {
+		this.name = name;
+	}
+
+	void record(long nanos) {
+		samples.add(nanos);
+	}
+
+	void error() {
+		errors.incrementAndGet();
+	}
+
+	String report(long wallNanos) {
+		long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+		double seconds = wallNanos / 1e9;
+		return String.format("%-22s n=%-5d errors=%-3d p50=%8.1fms p90=%8.1fms p99=%8.1fms max=%8.1fms throughput=%.2f/s",
+				name, sorted.length, errors.get(), millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+				sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6, sorted.length / seconds);
+	}
+
+	private static double millis(long[] sorted, double quantile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / 1e6;
+	}
+}
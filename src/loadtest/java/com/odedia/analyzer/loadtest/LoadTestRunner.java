@@ -0,0 +1,261 @@
+package com.odedia.analyzer.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import com.odedia.analyzer.PdfAnalyzerApplication;
+
+/**
+ * Offline end-to-end load test: boots the analyzer against {@link StubModelServer} and a
+ * pgvector container, uploads the sample documents concurrently, then fires concurrent
+ * questions and prints latency percentiles, time-to-first-token and throughput.
+ * <p>
+ * Run with {@code ./mvnw -Ploadtest compile exec:java}. Tunables are system properties
+ * ({@code -Dloadtest.query.concurrency=16}, ...), see {@link #main(String[])}.
+ */
+public class LoadTestRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(LoadTestRunner.class);
+
+	// Same questions runTests.sh sends against a live model
+	private static final String[] QUESTIONS = {
+		"על מה המסמכים?",
+		"מה היו דרישותיו של נאצר?",
+		"מה חשב בן גוריון על משה שרת?",
+		"מה ניתן להסיק לגבי יחסי ישראל ומצרים גם בימינו אלו?",
+		"מה היו הישגיה של ישראל במלחמת העצמאות?",
+		"האם ניתן לכנס את מליאת הכנסת במהלך הפגרה?",
+		"האם יור הכנסת  צריך להיוועץ בנשיא המדינה?",
+		"מהם כללי האתיקה שחלים על חברי כנסת?",
+		"האם חבר כנסת רשאי לתרום לעמותה?",
+		"What are the support timelines in the lifecycle matrix?"
+	};
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(10))
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+	private final String baseUrl;
+	private final int users;
+
+	LoadTestRunner(String baseUrl, int users) {
+		this.baseUrl = baseUrl;
+		this.users = users;
+	}
+
+	public static void main(String[] args) throws Exception {
+		int users = Integer.getInteger("loadtest.users", 4);
+		int dimensions = Integer.getInteger("loadtest.dimensions", 768);
+
+		try (StubModelServer models = new StubModelServer(dimensions,
+				Duration.ofMillis(Long.getLong("loadtest.model.first-token-ms", 300)),
+				Double.parseDouble(System.getProperty("loadtest.model.tokens-per-second", "40")),
+				Integer.getInteger("loadtest.model.answer-tokens", 60),
+				Duration.ofMillis(Long.getLong("loadtest.model.embed-ms", 20)));
+				Database database = Database.start()) {
+
+			Map<String, Object> props = new HashMap<>();
+			props.put("spring.datasource.url", database.jdbcUrl());
+			props.put("spring.datasource.username", database.username());
+			props.put("spring.datasource.password", database.password());
+			props.put("spring.ai.ollama.base-url", models.baseUrl());
+			props.put("spring.ai.vectorstore.pgvector.dimensions", dimensions);
+			props.put("loadtest.users", users);
+
+			try (ConfigurableApplicationContext app = new SpringApplicationBuilder(PdfAnalyzerApplication.class)
+					.profiles("loadtest")
+					.properties(props)
+					.run(args)) {
+				int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+				LoadTestRunner runner = new LoadTestRunner("http://127.0.0.1:" + port, users);
+
+				List<String> report = new ArrayList<>();
+				report.add(runner.ingest(new File(System.getProperty("loadtest.samples", "sample-pdfs")),
+						Integer.getInteger("loadtest.ingest.concurrency", 2)));
+				report.addAll(runner.query(Integer.getInteger("loadtest.query.count", 80),
+						Integer.getInteger("loadtest.query.concurrency", 8)));
+
+				logger.info("\n==== load test results ====\n{}\n", String.join("\n", report));
+			}
+		}
+	}
+
+	String ingest(File samplesDir, int concurrency) throws Exception {
+		List<File> files;
+		try (var paths = Files.walk(samplesDir.toPath())) {
+			files = paths.map(p -> p.toFile())
+					.filter(f -> f.isFile() && (f.getName().endsWith(".pdf") || f.getName().endsWith(".docx")))
+					.toList();
+		}
+		LatencyStats stats = new LatencyStats("ingest (per file)");
+		long wall = runConcurrently(files.size(), concurrency, i -> {
+			File file = files.get(i);
+			String boundary = UUID.randomUUID().toString();
+			HttpRequest request = authorized(i % users, "/document/analyze")
+					.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+					.POST(HttpRequest.BodyPublishers.ofByteArray(multipart(boundary, file)))
+					.build();
+			long start = System.nanoTime();
+			HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+			String body = drain(response.body(), null);
+			if (response.statusCode() != 200 || body.contains("event:error")) {
+				logger.warn("Ingestion of {} failed with status {}", file.getName(), response.statusCode());
+				stats.error();
+				return;
+			}
+			stats.record(System.nanoTime() - start);
+		});
+		return stats.report(wall);
+	}
+
+	List<String> query(int count, int concurrency) throws Exception {
+		List<String> conversations = new ArrayList<>();
+		for (int u = 0; u < users; u++) {
+			HttpResponse<String> created = http.send(authorized(u, "/document/conversations")
+					.POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+			conversations.add(created.body().trim());
+		}
+
+		LatencyStats latency = new LatencyStats("query (total)");
+		LatencyStats ttft = new LatencyStats("query (first token)");
+		long wall = runConcurrently(count, concurrency, i -> {
+			int user = i % users;
+			HttpRequest request = authorized(user, "/document/query")
+					.header("Content-Type", "text/plain; charset=UTF-8")
+					.header("X-Conversation-ID", conversations.get(user))
+					.header("X-Chat-Language", "he")
+					.POST(HttpRequest.BodyPublishers.ofString(QUESTIONS[i % QUESTIONS.length], StandardCharsets.UTF_8))
+					.build();
+			long start = System.nanoTime();
+			HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+			long[] firstByte = new long[1];
+			drain(response.body(), firstByte);
+			if (response.statusCode() != 200) {
+				latency.error();
+				return;
+			}
+			ttft.record(firstByte[0] - start);
+			latency.record(System.nanoTime() - start);
+		});
+		return List.of(ttft.report(wall), latency.report(wall));
+	}
+
+	private HttpRequest.Builder authorized(int user, String path) {
+		String credentials = "user-" + (user + 1) + ":" + LoadTestSecurityConfig.PASSWORD;
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofMinutes(10))
+				.header("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static String drain(InputStream in, long[] firstByteNanos) throws IOException {
+		try (in) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (firstByteNanos != null && firstByteNanos[0] == 0 && read > 0) {
+					firstByteNanos[0] = System.nanoTime();
+				}
+				out.write(buffer, 0, read);
+			}
+			return out.toString(StandardCharsets.UTF_8);
+		}
+	}
+
+	private static byte[] multipart(String boundary, File file) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(("--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"files\"; filename=\"" + file.getName() + "\"\r\n"
+				+ "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		body.write(Files.readAllBytes(file.toPath()));
+		body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+		return body.toByteArray();
+	}
+
+	/**
+	 * Runs {@code tasks} units of work with at most {@code concurrency} in flight and
+	 * returns the wall-clock time in nanoseconds.
+	 */
+	private static long runConcurrently(int tasks, int concurrency, Task task) throws Exception {
+		Semaphore permits = new Semaphore(concurrency);
+		List<Future<?>> futures = new ArrayList<>(tasks);
+		long start = System.nanoTime();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < tasks; i++) {
+				int index = i;
+				permits.acquire();
+				futures.add(executor.submit(() -> {
+					try {
+						task.run(index);
+					} catch (Exception e) {
+						logger.warn("Load test request {} failed: {}", index, e.toString());
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	@FunctionalInterface
+	private interface Task {
+		void run(int index) throws Exception;
+	}
+
+	/**
+	 * Either an existing database ({@code -Dloadtest.jdbc-url=...}) or a throwaway pgvector container.
+	 */
+	private record Database(String jdbcUrl, String username, String password, PostgreSQLContainer<?> container)
+			implements AutoCloseable {
+
+		static Database start() {
+			String url = System.getProperty("loadtest.jdbc-url");
+			if (url != null) {
+				return new Database(url, System.getProperty("loadtest.jdbc-username", "myuser"),
+						System.getProperty("loadtest.jdbc-password", "mypassword"), null);
+			}
+			PostgreSQLContainer<?> container = new PostgreSQLContainer<>(
+					DockerImageName.parse("pgvector/pgvector:pg16").asCompatibleSubstituteFor("postgres"));
+			container.start();
+			return new Database(container.getJdbcUrl(), container.getUsername(), container.getPassword(), container);
+		}
+
+		@Override
+		public void close() {
+			if (container != null) {
+				container.stop();
+			}
+		}
+	}
+}
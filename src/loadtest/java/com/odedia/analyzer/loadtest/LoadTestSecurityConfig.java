@@ -0,0 +1,52 @@
+package com.odedia.analyzer.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Puts HTTP basic for a fixed set of virtual users in front of the OAuth2 login, so the load
+ * generator can authenticate without an identity provider. The application's own chain stays
+ * registered but never sees a request: this one matches everything and is ordered first.
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+	static final String PASSWORD = "loadtest";
+
+	@Bean
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	SecurityFilterChain loadTestFilterChain(HttpSecurity http) throws Exception {
+		http
+			// an explicit matcher rather than any-request, which Spring Security only allows as the last chain
+			.securityMatcher("/**")
+			.csrf(csrf -> csrf.disable())
+			.authorizeHttpRequests(auth -> auth
+				.requestMatchers("/actuator/**").permitAll()
+				.anyRequest().authenticated())
+			.httpBasic(Customizer.withDefaults());
+		return http.build();
+	}
+
+	@Bean
+	InMemoryUserDetailsManager loadTestUsers(@Value("${loadtest.users:4}") int users) {
+		List<UserDetails> details = new ArrayList<>();
+		for (int i = 1; i <= users; i++) {
+			details.add(User.withUsername("user-" + i).password("{noop}" + PASSWORD).roles("USER").build());
+		}
+		return new InMemoryUserDetailsManager(details);
+	}
+}
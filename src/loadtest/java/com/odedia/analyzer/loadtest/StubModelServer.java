@@ -0,0 +1,170 @@
+package com.odedia.analyzer.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Deterministic stand-in for the Ollama HTTP API ({@code /api/chat}, {@code /api/embed}).
+ * Answers and embeddings are derived from a hash of the input so runs are repeatable,
+ * and timing is shaped by a fixed first-token latency plus a steady token rate.
+ */
+public class StubModelServer implements AutoCloseable {
+
+	private static final String[] WORDS = {
+		"המסמך", "מתאר", "את", "הכללים", "the", "document", "describes", "policy",
+		"section", "סעיף", "and", "של", "הכנסת", "requirements", "ביטוח", "data"
+	};
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final HttpServer server;
+	private final int dimensions;
+	private final Duration firstTokenLatency;
+	private final Duration embeddingLatency;
+	private final long nanosPerToken;
+	private final int answerTokens;
+
+	public StubModelServer(int dimensions, Duration firstTokenLatency, double tokensPerSecond, int answerTokens,
+			Duration embeddingLatency) throws IOException {
+		this.dimensions = dimensions;
+		this.firstTokenLatency = firstTokenLatency;
+		this.embeddingLatency = embeddingLatency;
+		this.nanosPerToken = tokensPerSecond <= 0 ? 0 : (long) (1_000_000_000L / tokensPerSecond);
+		this.answerTokens = answerTokens;
+		this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+		this.server.createContext("/api/chat", this::chat);
+		this.server.createContext("/api/embed", this::embed);
+		this.server.start();
+	}
+
+	public String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private void chat(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			JsonNode request = mapper.readTree(exchange.getRequestBody());
+			String model = request.path("model").asText("stub");
+			boolean stream = request.path("stream").asBoolean(false);
+			JsonNode messages = request.path("messages");
+			String lastMessage = messages.isEmpty() ? "" : messages.get(messages.size() - 1).path("content").asText();
+			int promptChars = 0;
+			for (JsonNode message : messages) {
+				promptChars += message.path("content").asText().length();
+			}
+			SplittableRandom random = new SplittableRandom(lastMessage.hashCode());
+
+			sleep(firstTokenLatency.toNanos());
+			exchange.getResponseHeaders().add("Content-Type", stream ? "application/x-ndjson" : "application/json");
+			exchange.sendResponseHeaders(200, 0);
+			OutputStream out = exchange.getResponseBody();
+
+			StringBuilder answer = new StringBuilder();
+			for (int i = 0; i < answerTokens; i++) {
+				String token = WORDS[random.nextInt(WORDS.length)] + " ";
+				answer.append(token);
+				if (stream) {
+					writeLine(out, chatChunk(model, token, false, 0, 0));
+					out.flush();
+					if (i < answerTokens - 1) {
+						sleep(nanosPerToken);
+					}
+				}
+			}
+			// Ollama reports prompt size in tokens; four characters per token is close enough here
+			writeLine(out, chatChunk(model, stream ? "" : answer.toString().trim(), true, promptChars / 4, answerTokens));
+		}
+	}
+
+	private Map<String, Object> chatChunk(String model, String content, boolean done, int promptTokens, int evalTokens) {
+		Map<String, Object> chunk = new LinkedHashMap<>();
+		chunk.put("model", model);
+		chunk.put("created_at", Instant.now().toString());
+		chunk.put("message", Map.of("role", "assistant", "content", content));
+		chunk.put("done", done);
+		if (done) {
+			chunk.put("done_reason", "stop");
+			chunk.put("prompt_eval_count", promptTokens);
+			chunk.put("eval_count", evalTokens);
+		}
+		return chunk;
+	}
+
+	private void embed(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			JsonNode request = mapper.readTree(exchange.getRequestBody());
+			List<String> inputs = new ArrayList<>();
+			JsonNode input = request.path("input");
+			if (input.isArray()) {
+				input.forEach(n -> inputs.add(n.asText()));
+			} else {
+				inputs.add(input.asText());
+			}
+			sleep(embeddingLatency.toNanos());
+
+			List<float[]> embeddings = new ArrayList<>(inputs.size());
+			for (String text : inputs) {
+				embeddings.add(vector(text));
+			}
+			byte[] body = mapper.writeValueAsBytes(Map.of(
+					"model", request.path("model").asText("stub"),
+					"embeddings", embeddings));
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+		}
+	}
+
+	/**
+	 * Unit vector seeded from the text, so the same chunk always lands in the same place.
+	 */
+	private float[] vector(String text) {
+		SplittableRandom random = new SplittableRandom(text.hashCode());
+		float[] v = new float[dimensions];
+		double norm = 0;
+		for (int i = 0; i < dimensions; i++) {
+			v[i] = (float) (random.nextDouble() * 2 - 1);
+			norm += v[i] * v[i];
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < dimensions; i++) {
+			v[i] *= scale;
+		}
+		return v;
+	}
+
+	private void writeLine(OutputStream out, Map<String, Object> json) throws IOException {
+		out.write(mapper.writeValueAsBytes(json));
+		out.write('\n');
+	}
+
+	private static void sleep(long nanos) {
+		if (nanos <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(Duration.ofNanos(nanos));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+}
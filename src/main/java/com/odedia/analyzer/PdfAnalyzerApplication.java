@@ -1,5 +1,8 @@
 package com.odedia.analyzer;
 
+import java.time.Duration;
+
+import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
@@ -9,12 +12,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.boot.web.servlet.MultipartConfigFactory;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.util.unit.DataSize;
 
+import com.odedia.analyzer.memory.CachingChatMemoryRepository;
+import com.odedia.analyzer.memory.SummarizingChatMemory;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.MultipartConfigElement;
 
 @SpringBootApplication(scanBasePackages = {
@@ -25,11 +34,29 @@ import jakarta.servlet.MultipartConfigElement;
 public class PdfAnalyzerApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(PdfAnalyzerApplication.class, args);
+		SpringApplication application = new SpringApplication(PdfAnalyzerApplication.class);
+		// startup step timings for StartupReport and /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
+    /**
+     * "window" keeps the last maxChatHistory messages; "summary" keeps the last
+     * app.ai.memory.summary.recentMessages verbatim and folds older turns into a rolling summary.
+     */
     @Bean
-    public ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository, @Value("${app.ai.maxChatHistory}") int maxMessages) {
+    public ChatMemory chatMemory(ChatMemoryRepository chatMemoryRepository,
+    		@Value("${app.ai.maxChatHistory}") int maxMessages,
+    		@Value("${app.ai.memory.mode:window}") String mode,
+    		@Value("${app.ai.memory.summary.recentMessages:4}") int recentMessages,
+    		@Value("${app.ai.memory.summary.foldMessages:4}") int foldMessages,
+    		@Value("${app.ai.memory.summary.maxChars:2000}") int maxSummaryChars,
+    		@Value("${app.ai.memory.summary.instructions}") String summaryInstructions,
+    		ChatClient.Builder chatClientBuilder) {
+        if ("summary".equalsIgnoreCase(mode)) {
+            return new SummarizingChatMemory(chatMemoryRepository, chatClientBuilder.build(), summaryInstructions,
+            		recentMessages, foldMessages, maxSummaryChars);
+        }
         return MessageWindowChatMemory.builder()
                 .chatMemoryRepository(chatMemoryRepository)
                 .maxMessages(maxMessages)
@@ -37,14 +64,21 @@ public class PdfAnalyzerApplication {
     }
 	
 	@Bean
-    public MultipartConfigElement multipartConfigElement() {
+    public MultipartConfigElement multipartConfigElement(
+    		@Value("${spring.servlet.multipart.max-file-size:500MB}") DataSize maxFileSize,
+    		@Value("${spring.servlet.multipart.max-request-size:1GB}") DataSize maxRequestSize,
+    		@Value("${spring.servlet.multipart.file-size-threshold:1MB}") DataSize fileSizeThreshold) {
         MultipartConfigFactory factory = new MultipartConfigFactory();
         
         // Set maximum file size
-        factory.setMaxFileSize(DataSize.ofMegabytes(50));
+        factory.setMaxFileSize(maxFileSize);
         
         // Set maximum request size (total file size)
-        factory.setMaxRequestSize(DataSize.ofMegabytes(50));
+        factory.setMaxRequestSize(maxRequestSize);
+        
+        // Parts above the threshold are spooled to disk instead of held in memory;
+        // ingestion reads them back in bounded chunks, so the limits above are not heap-bound.
+        factory.setFileSizeThreshold(fileSizeThreshold);
         
         // Set location for temporary files
         factory.setLocation("");
@@ -53,10 +87,25 @@ public class PdfAnalyzerApplication {
     }
 	
     @Bean
-    public ChatMemoryRepository chatMemoryRepository(JdbcTemplate jdbcTemplate) {
+    public JdbcChatMemoryRepository jdbcChatMemoryRepository(JdbcTemplate jdbcTemplate) {
         return JdbcChatMemoryRepository.builder()
                 .jdbcTemplate(jdbcTemplate)
                 .dialect(new PostgresChatMemoryRepositoryDialect())
                 .build();
     }
+
+    /**
+     * In-memory window cache with write-behind to Postgres; what the chat memory and the
+     * controllers use. The JDBC repository above is only its backing store.
+     */
+    @Bean
+    @Primary
+    public ChatMemoryRepository chatMemoryRepository(JdbcChatMemoryRepository jdbcChatMemoryRepository,
+    		@Value("${app.ai.memory.cache.maxConversations:1000}") int maxConversations,
+    		@Value("${app.ai.memory.cache.idleTimeout:30m}") Duration idleTimeout,
+    		@Value("${app.ai.memory.cache.shutdownTimeout:10s}") Duration shutdownTimeout,
+    		MeterRegistry meterRegistry) {
+        return new CachingChatMemoryRepository(jdbcChatMemoryRepository, maxConversations, idleTimeout,
+        		shutdownTimeout, meterRegistry);
+    }
 }
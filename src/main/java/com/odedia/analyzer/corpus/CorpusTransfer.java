@@ -0,0 +1,281 @@
+package com.odedia.analyzer.corpus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StopWatch;
+
+import com.odedia.analyzer.retrieval.ChildChunkSplitter;
+
+/**
+ * Moves a collection's chunks, with their embeddings, between databases without re-reading
+ * or re-embedding the source documents. The file is gzip over:
+ * <ol>
+ * <li>a header line, {@code pdf-analyzer-corpus 1 dimensions=<n>}</li>
+ * <li>the vector table's rows as Postgres binary COPY (id, content, metadata, embedding)</li>
+ * <li>the collection's parent documents, also binary COPY (see {@code app.ai.retrieval.mode})</li>
+ * </ol>
+ * each section framed by {@link FramedOutputStream}. Import loads the rows with COPY in one
+ * transaction. Into an empty table, the vector indexes are dropped first and rebuilt once after
+ * the load, which is far cheaper than maintaining HNSW row by row; a table that already has rows
+ * may be in use, so its indexes stay in place (DROP INDEX would lock out every search until
+ * commit) and rows whose id already exists are skipped. Parents already stored for another
+ * collection get new ids, so the two collections never share (or delete) each other's parents.
+ * Both directions run on the ingestion pool.
+ */
+@Component
+public class CorpusTransfer {
+
+	private static final Logger logger = LoggerFactory.getLogger(CorpusTransfer.class);
+
+	private static final String MAGIC = "pdf-analyzer-corpus 1";
+	private static final int FRAME_SIZE = 256 * 1024;
+	private static final String VECTOR_COLUMNS = "id, content, metadata, embedding";
+	private static final String PARENT_COLUMNS = "id, upload_id, content, metadata";
+
+	public record ImportResult(long chunks, long parents, long skipped, List<String> rebuiltIndexes) {
+	}
+
+	private record VectorIndex(String name, String definition) {
+	}
+
+	private final JdbcTemplate jdbc;
+	private final int dimensions;
+	private final String maintenanceWorkMem;
+	private final int parallelWorkers;
+
+	public CorpusTransfer(@Qualifier("ingestionJdbcTemplate") JdbcTemplate jdbc, PgVectorStoreProperties properties,
+			@Value("${app.corpus.maintenanceWorkMem:1GB}") String maintenanceWorkMem,
+			@Value("${app.corpus.parallelWorkers:2}") int parallelWorkers) {
+		this.jdbc = jdbc;
+		this.dimensions = properties.getDimensions();
+		this.maintenanceWorkMem = maintenanceWorkMem;
+		this.parallelWorkers = parallelWorkers;
+	}
+
+	/**
+	 * Writes {@code table} (schema-qualified) and its parents to {@code target}, from one
+	 * consistent snapshot. Does not close {@code target}.
+	 */
+	public void export(String table, OutputStream target) {
+		jdbc.execute((ConnectionCallback<Void>) connection -> {
+			connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+			connection.setReadOnly(true);
+			connection.setAutoCommit(false);
+			try {
+				CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+				GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(target, FRAME_SIZE), FRAME_SIZE);
+				gzip.write((MAGIC + " dimensions=" + dimensions + "\n").getBytes(StandardCharsets.US_ASCII));
+				try (FramedOutputStream section = new FramedOutputStream(gzip, FRAME_SIZE)) {
+					long rows = copy.copyOut("COPY (SELECT " + VECTOR_COLUMNS + " FROM " + table
+							+ ") TO STDOUT (FORMAT binary)", section);
+					logger.info("Exported {} chunks from {}", rows, table);
+				}
+				try (FramedOutputStream section = new FramedOutputStream(gzip, FRAME_SIZE)) {
+					copy.copyOut("COPY (SELECT " + PARENT_COLUMNS + " FROM document_parent WHERE collection_table = "
+							+ literal(table) + ") TO STDOUT (FORMAT binary)", section);
+				}
+				gzip.finish();
+				gzip.flush();
+				connection.commit();
+			} catch (IOException e) {
+				connection.rollback();
+				throw new UncheckedIOException(e);
+			} finally {
+				connection.setAutoCommit(true);
+				connection.setReadOnly(false);
+				connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Loads a file written by {@link #export} into {@code table} (schema-qualified, already created).
+	 * Everything, including the index rebuild, commits or rolls back together.
+	 */
+	public ImportResult importInto(String table, InputStream source) {
+		return jdbc.execute((ConnectionCallback<ImportResult>) connection -> {
+			connection.setAutoCommit(false);
+			try {
+				ImportResult result = load(connection, table, source);
+				connection.commit();
+				return result;
+			} catch (IOException e) {
+				connection.rollback();
+				throw new UncheckedIOException(e);
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		});
+	}
+
+	private ImportResult load(Connection connection, String table, InputStream source) throws IOException, SQLException {
+		StopWatch watch = new StopWatch("corpus-import " + table);
+		CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+		InputStream in = new GZIPInputStream(new BufferedInputStream(source, FRAME_SIZE), FRAME_SIZE);
+		checkHeader(readLine(in));
+
+		String schema = table.substring(0, table.indexOf('.'));
+		boolean empty = isEmpty(connection, table);
+		List<VectorIndex> indexes = empty ? vectorIndexes(connection, table) : List.of();
+		for (VectorIndex index : indexes) {
+			execute(connection, "DROP INDEX " + schema + "." + index.name());
+		}
+
+		watch.start("chunks");
+		long chunks;
+		long skipped = 0;
+		try (FramedInputStream section = new FramedInputStream(in)) {
+			if (empty) {
+				chunks = copy.copyIn("COPY " + table + " (" + VECTOR_COLUMNS + ") FROM STDIN (FORMAT binary)", section);
+			} else {
+				// ids may collide with existing rows: load aside, then insert what is new
+				execute(connection, "CREATE TEMP TABLE corpus_vector_import (LIKE " + table + ") ON COMMIT DROP");
+				long loaded = copy.copyIn("COPY corpus_vector_import (" + VECTOR_COLUMNS + ") FROM STDIN (FORMAT binary)",
+						section);
+				chunks = update(connection, "INSERT INTO " + table + " (" + VECTOR_COLUMNS + ") SELECT " + VECTOR_COLUMNS
+						+ " FROM corpus_vector_import ON CONFLICT (id) DO NOTHING");
+				skipped = loaded - chunks;
+			}
+		}
+		watch.stop();
+
+		watch.start("parents");
+		long parents;
+		execute(connection, "CREATE TEMP TABLE corpus_parent_import (id uuid, upload_id text, content text, metadata jsonb)"
+				+ " ON COMMIT DROP");
+		try (FramedInputStream section = new FramedInputStream(in)) {
+			copy.copyIn("COPY corpus_parent_import (" + PARENT_COLUMNS + ") FROM STDIN (FORMAT binary)", section);
+		}
+		// a parent id already owned by another collection gets a fresh id in this one
+		execute(connection, "CREATE TEMP TABLE corpus_parent_ids (old_id uuid, new_id uuid) ON COMMIT DROP");
+		try (PreparedStatement ids = connection.prepareStatement("INSERT INTO corpus_parent_ids"
+				+ " SELECT i.id, CASE WHEN p.id IS NULL OR p.collection_table = ? THEN i.id"
+				+ " ELSE gen_random_uuid() END"
+				+ " FROM corpus_parent_import i LEFT JOIN document_parent p ON p.id = i.id")) {
+			ids.setString(1, table);
+			ids.executeUpdate();
+		}
+		try (PreparedStatement insert = connection.prepareStatement("INSERT INTO document_parent"
+				+ " (id, collection_table, upload_id, content, metadata) SELECT m.new_id, ?, i.upload_id, i.content, i.metadata"
+				+ " FROM corpus_parent_import i JOIN corpus_parent_ids m ON m.old_id = i.id ON CONFLICT (id) DO NOTHING")) {
+			insert.setString(1, table);
+			parents = insert.executeUpdate();
+		}
+		update(connection, "UPDATE " + table + " t SET metadata = jsonb_set(t.metadata::jsonb, '{"
+				+ ChildChunkSplitter.PARENT_ID + "}', to_jsonb(m.new_id::text))::json"
+				+ " FROM corpus_parent_ids m WHERE m.old_id <> m.new_id"
+				+ " AND t.metadata::jsonb ->> '" + ChildChunkSplitter.PARENT_ID + "' = m.old_id::text");
+		watch.stop();
+
+		watch.start("indexes");
+		if (!indexes.isEmpty()) {
+			execute(connection, "SET LOCAL maintenance_work_mem = " + literal(maintenanceWorkMem));
+			execute(connection, "SET LOCAL max_parallel_maintenance_workers = " + parallelWorkers);
+			for (VectorIndex index : indexes) {
+				execute(connection, index.definition());
+			}
+		}
+		execute(connection, "ANALYZE " + table);
+		watch.stop();
+
+		logger.info("Imported {} chunks ({} already present) and {} parents into {}: {}", chunks, skipped, parents,
+				table, watch.prettyPrint());
+		return new ImportResult(chunks, parents, skipped, indexes.stream().map(VectorIndex::name).toList());
+	}
+
+	private void checkHeader(String header) {
+		if (!header.startsWith(MAGIC + " ")) {
+			throw new IllegalArgumentException("Not a corpus export file");
+		}
+		int fileDimensions = Integer.parseInt(header.substring(header.indexOf("dimensions=") + "dimensions=".length()));
+		if (dimensions > 0 && fileDimensions > 0 && fileDimensions != dimensions) {
+			throw new IllegalArgumentException("Corpus has " + fileDimensions + "-dimension embeddings, this store uses "
+					+ dimensions + "; import needs the same embedding model");
+		}
+	}
+
+	/**
+	 * CREATE INDEX statements of the table's HNSW / IVFFlat indexes, including quantized expression indexes.
+	 */
+	private List<VectorIndex> vectorIndexes(Connection connection, String table) throws SQLException {
+		String[] parts = table.split("\\.", 2);
+		List<VectorIndex> indexes = new ArrayList<>();
+		try (PreparedStatement query = connection.prepareStatement("SELECT indexname, indexdef FROM pg_indexes"
+				+ " WHERE schemaname = ? AND tablename = ? AND indexdef ~* 'USING (hnsw|ivfflat)'")) {
+			query.setString(1, parts[0]);
+			query.setString(2, parts[1]);
+			try (ResultSet rs = query.executeQuery()) {
+				while (rs.next()) {
+					indexes.add(new VectorIndex(rs.getString(1), rs.getString(2)));
+				}
+			}
+		}
+		return indexes;
+	}
+
+	private static boolean isEmpty(Connection connection, String table) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT NOT EXISTS (SELECT 1 FROM " + table + ")")) {
+			rs.next();
+			return rs.getBoolean(1);
+		}
+	}
+
+	private static void execute(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private static long update(Connection connection, String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			return statement.executeLargeUpdate(sql);
+		}
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b < 0 || line.size() > 256) {
+				throw new IllegalArgumentException("Not a corpus export file");
+			}
+			line.write(b);
+		}
+		return line.toString(StandardCharsets.US_ASCII);
+	}
+
+	private static String literal(String value) {
+		return "'" + value.replace("'", "''") + "'";
+	}
+}
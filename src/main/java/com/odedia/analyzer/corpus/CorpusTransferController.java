@@ -0,0 +1,55 @@
+package com.odedia.analyzer.corpus;
+
+import java.io.IOException;
+import java.security.Principal;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.odedia.analyzer.db.VectorStoreCollections;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * {@code GET /document/export} downloads the caller's collection (X-Collection header, as for
+ * uploads) with its embeddings; {@code POST /document/import} loads such a file, raw request body.
+ */
+@RestController
+@RequestMapping("/document")
+public class CorpusTransferController {
+
+	private final CorpusTransfer transfer;
+	private final VectorStoreCollections collections;
+
+	public CorpusTransferController(CorpusTransfer transfer, VectorStoreCollections collections) {
+		this.transfer = transfer;
+		this.collections = collections;
+	}
+
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(Principal principal,
+			@RequestHeader(value = "X-Collection", required = false) String collection) {
+		if (!collections.exists(principal, collection)) {
+			return ResponseEntity.notFound().build();
+		}
+		String table = collections.qualifiedTableFor(principal, collection);
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_OCTET_STREAM)
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"corpus.pgcopy.gz\"")
+				.body(out -> transfer.export(table, out));
+	}
+
+	@PostMapping(path = "/import", produces = MediaType.APPLICATION_JSON_VALUE)
+	public CorpusTransfer.ImportResult importCorpus(HttpServletRequest request, Principal principal,
+			@RequestHeader(value = "X-Collection", required = false) String collection) throws IOException {
+		collections.storeFor(principal, collection);
+		return transfer.importInto(collections.qualifiedTableFor(principal, collection), request.getInputStream());
+	}
+}
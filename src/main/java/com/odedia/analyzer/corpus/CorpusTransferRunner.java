@@ -0,0 +1,88 @@
+package com.odedia.analyzer.corpus;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Principal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.odedia.analyzer.db.VectorStoreCollections;
+
+/**
+ * Command-line export / import; the application exits when done:
+ * <pre>
+ *   java -jar app.jar --spring.main.web-application-type=none --app.corpus.export=corpus.pgcopy.gz
+ *   java -jar app.jar --spring.main.web-application-type=none --app.corpus.import=corpus.pgcopy.gz
+ * </pre>
+ * {@code --app.corpus.owner} and {@code --app.corpus.collection} select the collection, as the
+ * signed-in user and X-Collection header do over HTTP.
+ */
+@Component
+@ConditionalOnExpression("'${app.corpus.export:}' != '' or '${app.corpus.import:}' != ''")
+public class CorpusTransferRunner implements ApplicationRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(CorpusTransferRunner.class);
+
+	private final CorpusTransfer transfer;
+	private final VectorStoreCollections collections;
+	private final ConfigurableApplicationContext context;
+
+	@Value("${app.corpus.export:}")
+	private String exportFile;
+
+	@Value("${app.corpus.import:}")
+	private String importFile;
+
+	@Value("${app.corpus.owner:anonymous}")
+	private String owner;
+
+	@Value("${app.corpus.collection:}")
+	private String collection;
+
+	public CorpusTransferRunner(CorpusTransfer transfer, VectorStoreCollections collections,
+			ConfigurableApplicationContext context) {
+		this.transfer = transfer;
+		this.collections = collections;
+		this.context = context;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		Principal principal = () -> owner;
+		String name = collection.isBlank() ? null : collection;
+		String table = collections.qualifiedTableFor(principal, name);
+		int status = 0;
+		try {
+			if (!exportFile.isBlank()) {
+				if (!collections.exists(principal, name)) {
+					throw new IllegalStateException(table + " does not exist");
+				}
+				try (OutputStream out = Files.newOutputStream(Path.of(exportFile))) {
+					transfer.export(table, out);
+				}
+				logger.info("Exported {} to {}", table, exportFile);
+			}
+			if (!importFile.isBlank()) {
+				collections.storeFor(principal, name);
+				try (InputStream in = Files.newInputStream(Path.of(importFile))) {
+					logger.info("Imported {} into {}: {}", importFile, table, transfer.importInto(table, in));
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.error("Corpus transfer failed", e);
+			status = 1;
+		}
+		int exitCode = status;
+		System.exit(SpringApplication.exit(context, () -> exitCode));
+	}
+}
@@ -0,0 +1,68 @@
+package com.odedia.analyzer.corpus;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads one section written by {@link FramedOutputStream}: end of stream at its empty frame,
+ * leaving the underlying stream positioned at the next section.
+ */
+class FramedInputStream extends InputStream {
+
+	private final DataInputStream in;
+	private int remaining;
+	private boolean done;
+
+	FramedInputStream(InputStream in) {
+		this.in = new DataInputStream(in);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextFrame()) {
+			return -1;
+		}
+		remaining--;
+		return in.readUnsignedByte();
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextFrame()) {
+			return -1;
+		}
+		int n = in.read(b, off, Math.min(len, remaining));
+		if (n < 0) {
+			throw new IOException("Corpus file ends inside a frame");
+		}
+		remaining -= n;
+		return n;
+	}
+
+	/**
+	 * Reads the rest of the section, so the next one can be read even if COPY stopped early.
+	 */
+	@Override
+	public void close() throws IOException {
+		while (nextFrame()) {
+			in.skipNBytes(remaining);
+			remaining = 0;
+		}
+	}
+
+	private boolean nextFrame() throws IOException {
+		while (remaining == 0 && !done) {
+			int length = in.readInt();
+			if (length < 0) {
+				throw new IOException("Corrupt corpus file: negative frame length");
+			}
+			remaining = length;
+			done = length == 0;
+		}
+		return !done;
+	}
+}
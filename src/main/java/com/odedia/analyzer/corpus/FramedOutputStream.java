@@ -0,0 +1,59 @@
+package com.odedia.analyzer.corpus;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Splits one section of a corpus file into length-prefixed frames, ended by an empty frame,
+ * so sections of unknown length (COPY output) can follow each other in a single stream.
+ * Closing ends the section but leaves the underlying stream open.
+ */
+class FramedOutputStream extends OutputStream {
+
+	private final DataOutputStream out;
+	private final byte[] buffer;
+	private int count;
+
+	FramedOutputStream(OutputStream out, int frameSize) {
+		this.out = new DataOutputStream(out);
+		this.buffer = new byte[frameSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (count == buffer.length) {
+			writeFrame();
+		}
+		buffer[count++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (count == buffer.length) {
+				writeFrame();
+			}
+			int n = Math.min(len, buffer.length - count);
+			System.arraycopy(b, off, buffer, count, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (count > 0) {
+			writeFrame();
+		}
+		out.writeInt(0);
+		out.flush();
+	}
+
+	private void writeFrame() throws IOException {
+		out.writeInt(count);
+		out.write(buffer, 0, count);
+		count = 0;
+	}
+}
@@ -0,0 +1,54 @@
+package com.odedia.analyzer.db;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Two Hikari pools on the same database, so bulk ingestion cannot take every connection
+ * away from interactive requests:
+ * <ul>
+ * <li>{@code interactive} (primary, {@code spring.datasource.hikari.*}): JPA, chat memory,
+ * the document catalog and vector searches.</li>
+ * <li>{@code ingestion} ({@code app.datasource.ingestion.hikari.*}): vector store inserts
+ * and deletes. Its size caps how many embedding batches are written concurrently.</li>
+ * </ul>
+ * Both pools report {@code hikaricp.connections.*} metrics tagged with their pool name.
+ */
+@Configuration
+public class DataSourceConfig {
+
+	@Bean
+	@Primary
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	@ConfigurationProperties("app.datasource.ingestion.hikari")
+	public HikariDataSource ingestionDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	/**
+	 * Declared explicitly: Boot's JdbcTemplate auto-configuration backs off as soon as
+	 * {@link #ingestionJdbcTemplate} exists, which would put every other JdbcTemplate user on the ingestion pool.
+	 */
+	@Bean
+	@Primary
+	public JdbcTemplate jdbcTemplate(HikariDataSource dataSource) {
+		return new JdbcTemplate(dataSource);
+	}
+
+	@Bean
+	public JdbcTemplate ingestionJdbcTemplate(@Qualifier("ingestionDataSource") HikariDataSource ingestionDataSource) {
+		return new JdbcTemplate(ingestionDataSource);
+	}
+}
@@ -0,0 +1,76 @@
+package com.odedia.analyzer.db;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingOptions;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+/**
+ * The embedding model handed to the search-side {@code PgVectorStore}s. Lets
+ * {@link TunedPgVectorStore} embed the query before it borrows a connection: inside
+ * {@link #with}, embedding that same query text returns the precomputed vector instead of
+ * calling the model again. Everything else goes to the real model.
+ */
+final class PrecomputedQueryEmbedding implements EmbeddingModel {
+
+	private record Precomputed(String text, float[] embedding) {
+	}
+
+	private final EmbeddingModel delegate;
+	private final ThreadLocal<Precomputed> current = new ThreadLocal<>();
+
+	PrecomputedQueryEmbedding(EmbeddingModel delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Embeds {@code query} now, then runs {@code search} on this thread with that embedding in place.
+	 */
+	<T> T with(String query, Supplier<T> search) {
+		float[] embedding = delegate.embed(query);
+		current.set(new Precomputed(query, embedding));
+		try {
+			return search.get();
+		} finally {
+			current.remove();
+		}
+	}
+
+	float[] embedQuery(String query) {
+		return delegate.embed(query);
+	}
+
+	@Override
+	public float[] embed(String text) {
+		Precomputed precomputed = current.get();
+		if (precomputed != null && precomputed.text().equals(text)) {
+			return precomputed.embedding();
+		}
+		return delegate.embed(text);
+	}
+
+	@Override
+	public EmbeddingResponse call(EmbeddingRequest request) {
+		return delegate.call(request);
+	}
+
+	@Override
+	public float[] embed(Document document) {
+		return delegate.embed(document);
+	}
+
+	@Override
+	public List<float[]> embed(List<Document> documents, EmbeddingOptions options, BatchingStrategy batchingStrategy) {
+		return delegate.embed(documents, options, batchingStrategy);
+	}
+
+	@Override
+	public int dimensions() {
+		return delegate.dimensions();
+	}
+}
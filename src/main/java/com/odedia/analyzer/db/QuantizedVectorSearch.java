@@ -0,0 +1,257 @@
+package com.odedia.analyzer.db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentMetadata;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.pgvector.PgVectorFilterExpressionConverter;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgDistanceType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pgvector.PGvector;
+
+/**
+ * Searches through a reduced HNSW index while the table keeps full-precision embeddings.
+ * The index covers an expression over the {@code embedding} column:
+ * <ul>
+ * <li>{@code halfvec}: 16-bit floats, half the index size</li>
+ * <li>{@code binary}: one bit per dimension ({@code binary_quantize}), compared by Hamming
+ * distance. About 1/32 of the index size, but too coarse to rank on its own.</li>
+ * </ul>
+ * and optionally only the first {@code indexDimensions} dimensions ({@code subvector}),
+ * for Matryoshka-trained models such as nomic-embed-text v1.5 and text-embedding-3.
+ * <p>
+ * A search fetches {@code topK * oversample} candidates through the index and re-ranks
+ * them by exact distance on the full vectors. Because rows are unchanged, migrating is only
+ * an index swap: {@link #initialize()} builds the reduced index concurrently, then drops the
+ * full-precision index. Needs pgvector 0.7+.
+ */
+public class QuantizedVectorSearch {
+
+	private static final Logger logger = LoggerFactory.getLogger(QuantizedVectorSearch.class);
+
+	private static final String DEFAULT_TABLE_NAME = "vector_store";
+
+	public enum Quantization {
+		NONE, HALFVEC, BINARY;
+
+		public static Quantization from(String value) {
+			return valueOf(value.trim().toUpperCase());
+		}
+	}
+
+	private final JdbcTemplate searchJdbcTemplate;
+	private final JdbcTemplate ddlJdbcTemplate;
+	private final String schemaName;
+	private final String tableName;
+	private final Quantization quantization;
+	private final int dimensions;
+	private final int indexDimensions;
+	private final int oversample;
+	private final PgDistanceType distanceType;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final PgVectorFilterExpressionConverter filterConverter = new PgVectorFilterExpressionConverter();
+
+	private volatile boolean ready;
+
+	/**
+	 * @param indexDimensions leading dimensions covered by the index; 0 or {@code dimensions} for all
+	 */
+	public QuantizedVectorSearch(JdbcTemplate searchJdbcTemplate, JdbcTemplate ddlJdbcTemplate, String schemaName,
+			String tableName, Quantization quantization, int dimensions, int indexDimensions, int oversample,
+			PgDistanceType distanceType) {
+		if (quantization == Quantization.NONE) {
+			throw new IllegalArgumentException("Quantization NONE uses the regular pgvector index");
+		}
+		this.searchJdbcTemplate = searchJdbcTemplate;
+		this.ddlJdbcTemplate = ddlJdbcTemplate;
+		this.schemaName = schemaName;
+		this.tableName = tableName;
+		this.quantization = quantization;
+		this.dimensions = dimensions;
+		this.indexDimensions = indexDimensions <= 0 || indexDimensions > dimensions ? dimensions : indexDimensions;
+		this.oversample = Math.max(oversample, 1);
+		this.distanceType = distanceType;
+	}
+
+	/**
+	 * False until the reduced index is in place; until then searches should go through the
+	 * regular store (and its full-precision index, if it still exists).
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	public int candidates(int topK) {
+		return topK * oversample;
+	}
+
+	/**
+	 * The same settings for another table of the same schema, e.g. a per-owner collection.
+	 */
+	public QuantizedVectorSearch forTable(String table) {
+		return new QuantizedVectorSearch(searchJdbcTemplate, ddlJdbcTemplate, schemaName, table, quantization,
+				dimensions, indexDimensions, oversample, distanceType);
+	}
+
+	public void initialize() {
+		try {
+			migrate();
+			ready = true;
+		} catch (RuntimeException e) {
+			logger.error("Could not build the {} vector index on {}; searches stay on the regular index",
+					quantization, tableName, e);
+		}
+	}
+
+	/**
+	 * Builds the reduced index if missing (or left invalid by an interrupted build), then drops the
+	 * full-precision index and reduced indexes of other settings. Runs outside a transaction,
+	 * as CONCURRENTLY requires.
+	 */
+	void migrate() {
+		String index = indexName();
+		Boolean valid = ddlJdbcTemplate.query(
+				"SELECT i.indisvalid FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+						+ "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relname = ?",
+				rs -> rs.next() ? rs.getBoolean(1) : null, schemaName, index);
+		if (Boolean.FALSE.equals(valid)) {
+			ddlJdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + qualified(index));
+		}
+		if (!Boolean.TRUE.equals(valid)) {
+			logger.info("Building {} on {}, this can take a while for large tables", index, qualified(tableName));
+			ddlJdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " ON " + qualified(tableName)
+					+ " USING hnsw ((" + indexExpression("embedding") + ") " + operatorClass() + ")");
+		}
+
+		List<String> obsolete = new ArrayList<>(reducedIndexes(ddlJdbcTemplate, schemaName, tableName));
+		obsolete.remove(index);
+		obsolete.add(fullPrecisionIndexName());
+		for (String name : obsolete) {
+			ddlJdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + qualified(name));
+		}
+		logger.info("Vector searches use {} ({} of {} dimensions, {}x oversampling)", index, indexDimensions,
+				dimensions, oversample);
+	}
+
+	/**
+	 * For {@code quantization: none}: drops reduced indexes left by an earlier setting, which
+	 * would otherwise keep using memory and slowing writes. The full-precision index is
+	 * recreated by the store's schema initialization.
+	 */
+	public static void dropReducedIndexes(JdbcTemplate ddlJdbcTemplate, String schemaName, String tableName) {
+		try {
+			for (String name : reducedIndexes(ddlJdbcTemplate, schemaName, tableName)) {
+				logger.info("Dropping {}.{}, quantization is off", schemaName, name);
+				ddlJdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + schemaName + "." + name);
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Could not drop the reduced vector indexes of {}.{}", schemaName, tableName, e);
+		}
+	}
+
+	private static List<String> reducedIndexes(JdbcTemplate jdbcTemplate, String schemaName, String tableName) {
+		return jdbcTemplate.queryForList(
+				"SELECT indexname FROM pg_indexes WHERE schemaname = ? AND tablename = ? AND indexname LIKE ?",
+				String.class, schemaName, tableName, tableName.replace("_", "\\_") + "\\_q\\_%");
+	}
+
+	/**
+	 * Candidates by the reduced index, re-ranked by exact distance. Must run in the
+	 * transaction that set hnsw.ef_search to at least {@link #candidates(int)}.
+	 */
+	public List<Document> search(SearchRequest request, float[] queryEmbedding) {
+		PGvector query = new PGvector(queryEmbedding);
+		String where = request.hasFilterExpression()
+				? " WHERE metadata::jsonb @@ '" + filterConverter.convertExpression(request.getFilterExpression()) + "'::jsonpath"
+				: "";
+		String sql = "SELECT id, content, metadata, distance FROM ("
+				+ "SELECT id, content, metadata, embedding " + distanceOperator() + " ? AS distance FROM ("
+				+ "SELECT id, content, metadata, embedding FROM " + qualified(tableName) + where
+				+ " ORDER BY " + indexExpression("embedding") + " " + indexOperator() + " " + indexExpression("?::vector")
+				+ " LIMIT ?) candidates) ranked"
+				+ " WHERE distance < ? ORDER BY distance LIMIT ?";
+		return searchJdbcTemplate.query(sql, (rs, rowNum) -> {
+			double distance = rs.getDouble("distance");
+			Map<String, Object> metadata = parseMetadata(rs.getString("metadata"));
+			metadata.put(DocumentMetadata.DISTANCE.value(), distance);
+			return Document.builder()
+					.id(rs.getString("id"))
+					.text(rs.getString("content"))
+					.metadata(metadata)
+					.score(1.0 - distance)
+					.build();
+		}, query, query, candidates(request.getTopK()), 1 - request.getSimilarityThreshold(), request.getTopK());
+	}
+
+	/**
+	 * The same expression must be used when creating the index and when ordering by it,
+	 * or Postgres will not use the index.
+	 */
+	private String indexExpression(String vector) {
+		String reduced = indexDimensions < dimensions
+				? "subvector(" + vector + ", 1, " + indexDimensions + ")"
+				: vector;
+		return switch (quantization) {
+			case HALFVEC -> "(" + reduced + ")::halfvec(" + indexDimensions + ")";
+			case BINARY -> "binary_quantize(" + reduced + ")::bit(" + indexDimensions + ")";
+			case NONE -> throw new IllegalStateException();
+		};
+	}
+
+	private String operatorClass() {
+		if (quantization == Quantization.BINARY) {
+			return "bit_hamming_ops";
+		}
+		return switch (distanceType) {
+			case EUCLIDEAN_DISTANCE -> "halfvec_l2_ops";
+			case NEGATIVE_INNER_PRODUCT -> "halfvec_ip_ops";
+			default -> "halfvec_cosine_ops";
+		};
+	}
+
+	private String indexOperator() {
+		return quantization == Quantization.BINARY ? "<~>" : distanceOperator();
+	}
+
+	private String distanceOperator() {
+		return switch (distanceType) {
+			case EUCLIDEAN_DISTANCE -> "<->";
+			case NEGATIVE_INNER_PRODUCT -> "<#>";
+			default -> "<=>";
+		};
+	}
+
+	private String indexName() {
+		return tableName + "_q_" + quantization.name().toLowerCase() + "_" + indexDimensions;
+	}
+
+	/**
+	 * The name PgVectorStore gives its own HNSW/IVFFlat index.
+	 */
+	private String fullPrecisionIndexName() {
+		return DEFAULT_TABLE_NAME.equals(tableName) ? "spring_ai_vector_index" : tableName + "_index";
+	}
+
+	private String qualified(String name) {
+		return schemaName + "." + name;
+	}
+
+	private Map<String, Object> parseMetadata(String json) {
+		try {
+			return json == null ? new HashMap<>() : objectMapper.readValue(json, new TypeReference<>() {
+			});
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Unreadable metadata: " + json, e);
+		}
+	}
+}
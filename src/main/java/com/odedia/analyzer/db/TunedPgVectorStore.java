@@ -0,0 +1,102 @@
+package com.odedia.analyzer.db;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes writes to the ingestion-pool store and searches to the interactive-pool store.
+ * Each search runs in a short read-only transaction that first sets
+ * {@code hnsw.ef_search} (raised to at least topK, since HNSW never returns more than
+ * ef_search rows) and, for filtered searches, pgvector 0.8's {@code hnsw.iterative_scan},
+ * so the HNSW index keeps scanning until enough rows pass the filter.
+ * The settings are transaction-local and never leak into pooled connections. The query is
+ * embedded before the transaction starts, so no connection is held during the model call.
+ */
+public class TunedPgVectorStore implements VectorStore {
+
+	private final VectorStore searchStore;
+	private final VectorStore writeStore;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int efSearch;
+	private final String iterativeScan;
+	private final PrecomputedQueryEmbedding queryEmbedding;
+	private final QuantizedVectorSearch quantizedSearch;
+
+	/**
+	 * @param searchStore must have been built with {@code queryEmbedding} as its embedding model
+	 * @param iterativeScan "off", "relaxed_order" or "strict_order"; anything but "off" needs pgvector 0.8+
+	 * @param quantizedSearch when set (and its index is built), searches go through the reduced
+	 * index and are re-ranked on full vectors
+	 */
+	TunedPgVectorStore(VectorStore searchStore, VectorStore writeStore, JdbcTemplate jdbcTemplate,
+			int efSearch, String iterativeScan, PrecomputedQueryEmbedding queryEmbedding,
+			QuantizedVectorSearch quantizedSearch) {
+		this.searchStore = searchStore;
+		this.writeStore = writeStore;
+		this.jdbcTemplate = jdbcTemplate;
+		this.efSearch = efSearch;
+		this.iterativeScan = iterativeScan;
+		this.queryEmbedding = queryEmbedding;
+		this.quantizedSearch = quantizedSearch;
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@Override
+	public String getName() {
+		return searchStore.getName();
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		writeStore.add(documents);
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+		writeStore.delete(idList);
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+		writeStore.delete(filterExpression);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		if (quantizedSearch != null && quantizedSearch.isReady()) {
+			float[] embedding = queryEmbedding.embedQuery(request.getQuery());
+			return transactionTemplate.execute(status -> {
+				applySearchSettings(request, quantizedSearch.candidates(request.getTopK()));
+				return quantizedSearch.search(request, embedding);
+			});
+		}
+		return queryEmbedding.with(request.getQuery(), () -> transactionTemplate.execute(status -> {
+			applySearchSettings(request, request.getTopK());
+			return searchStore.similaritySearch(request);
+		}));
+	}
+
+	private void applySearchSettings(SearchRequest request, int candidates) {
+		jdbcTemplate.queryForObject("SELECT set_config('hnsw.ef_search', ?, true)", String.class,
+				Integer.toString(Math.max(efSearch, candidates)));
+		if (request.hasFilterExpression() && !"off".equalsIgnoreCase(iterativeScan)) {
+			jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', ?, true)", String.class,
+					iterativeScan);
+		}
+	}
+
+	@Override
+	public <T> Optional<T> getNativeClient() {
+		return searchStore.getNativeClient();
+	}
+}
@@ -0,0 +1,28 @@
+package com.odedia.analyzer.db;
+
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+
+/**
+ * Creates the pgvector extension, table and index (or the quantized index) on demand, for
+ * when {@code spring.ai.vectorstore.pgvector.initialize-schema} is off at startup and the
+ * work is done in the background instead (see the fast-start profile).
+ */
+public class VectorSchemaInitializer {
+
+	private final PgVectorStore schemaStore;
+	private final Runnable indexMigration;
+
+	/**
+	 * @param schemaStore a store built with initializeSchema(true) but not initialized yet
+	 * @param indexMigration builds the reduced index, or drops left-over ones when quantization is off
+	 */
+	public VectorSchemaInitializer(PgVectorStore schemaStore, Runnable indexMigration) {
+		this.schemaStore = schemaStore;
+		this.indexMigration = indexMigration;
+	}
+
+	public void initialize() {
+		schemaStore.afterPropertiesSet();
+		indexMigration.run();
+	}
+}
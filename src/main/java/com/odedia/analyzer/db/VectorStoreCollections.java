@@ -0,0 +1,238 @@
+package com.odedia.analyzer.db;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resolves the vector store a request works on. With {@code app.vectorstore.collections: owner}
+ * every owner (optionally narrowed by a named collection) gets its own table,
+ * {@code <table>_<slug>}, with its own HNSW index, so a search only walks that owner's
+ * graph and clearing one owner's documents is a TRUNCATE of their table alone.
+ * With {@code shared} everything stays in the single configured table, as before.
+ * <p>
+ * Tables are only created on write paths ({@link #storeFor}); reads of a collection that does
+ * not exist get {@link #readStoreFor an empty store} instead. Collection names are validated,
+ * and each owner may create at most {@code app.vectorstore.maxCollectionsPerOwner} tables,
+ * recorded in {@code vector_collection}; registrations of one owner are serialized with a
+ * transaction-scoped advisory lock so concurrent writers cannot exceed that limit. Stores of
+ * existing tables are cached for the life of the application.
+ */
+public class VectorStoreCollections {
+
+	private static final Logger logger = LoggerFactory.getLogger(VectorStoreCollections.class);
+
+	private static final int MAX_SLUG_LENGTH = 24;
+
+	private static final Pattern COLLECTION_NAME = Pattern.compile("[\\p{L}\\p{N} ._-]{1,64}");
+
+	/** Stands in for a collection nobody has written to yet. */
+	private static final VectorStore EMPTY = new VectorStore() {
+
+		@Override
+		public String getName() {
+			return "empty";
+		}
+
+		@Override
+		public void add(List<Document> documents) {
+			throw new UnsupportedOperationException("Collection does not exist");
+		}
+
+		@Override
+		public void delete(List<String> idList) {
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			return List.of();
+		}
+	};
+
+	public enum Mode {
+		SHARED, OWNER;
+
+		public static Mode from(String value) {
+			return valueOf(value.trim().toUpperCase());
+		}
+	}
+
+	private final Mode mode;
+	private final String schemaName;
+	private final String baseTable;
+	private final VectorStore sharedStore;
+	private final Function<String, VectorStore> storeFactory;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int maxCollectionsPerOwner;
+	private final Map<String, VectorStore> stores = new ConcurrentHashMap<>();
+
+	/**
+	 * @param storeFactory creates (and initializes the schema of) the store for a table name
+	 */
+	public VectorStoreCollections(Mode mode, String schemaName, String baseTable, VectorStore sharedStore,
+			Function<String, VectorStore> storeFactory, JdbcTemplate jdbcTemplate, int maxCollectionsPerOwner) {
+		this.mode = mode;
+		this.schemaName = schemaName;
+		this.baseTable = baseTable;
+		this.sharedStore = sharedStore;
+		this.storeFactory = storeFactory;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = jdbcTemplate == null ? null
+				: new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+		this.maxCollectionsPerOwner = maxCollectionsPerOwner;
+	}
+
+	/**
+	 * The store to write to, creating the collection's table if needed.
+	 *
+	 * @throws ResponseStatusException 400 for an invalid collection name, 409 when the owner
+	 * already has the maximum number of collections
+	 */
+	public VectorStore storeFor(Principal principal, String collection) {
+		if (mode == Mode.SHARED) {
+			return sharedStore;
+		}
+		String table = tableFor(principal, collection);
+		VectorStore store = stores.get(table);
+		if (store != null) {
+			return store;
+		}
+		if (!exists(table)) {
+			register(table, owner(principal), collection);
+		}
+		return open(table);
+	}
+
+	/**
+	 * The store to search, list or export; an empty store if the collection's table does not
+	 * exist. Never creates anything.
+	 */
+	public VectorStore readStoreFor(Principal principal, String collection) {
+		if (mode == Mode.SHARED) {
+			return sharedStore;
+		}
+		String table = tableFor(principal, collection);
+		VectorStore store = stores.get(table);
+		if (store != null) {
+			return store;
+		}
+		return exists(table) ? open(table) : EMPTY;
+	}
+
+	/**
+	 * Whether the collection's table exists; always true for the shared table.
+	 */
+	public boolean exists(Principal principal, String collection) {
+		return mode == Mode.SHARED || readStoreFor(principal, collection) != EMPTY;
+	}
+
+	/**
+	 * Schema-qualified table holding the collection's chunks. Does not create it: writers call
+	 * {@link #storeFor} first, readers check {@link #exists}.
+	 */
+	public String qualifiedTableFor(Principal principal, String collection) {
+		return schemaName + "." + tableFor(principal, collection);
+	}
+
+	private VectorStore open(String table) {
+		return stores.computeIfAbsent(table, t -> {
+			logger.info("Opening vector collection {}", t);
+			return storeFactory.apply(t);
+		});
+	}
+
+	private boolean exists(String table) {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+				schemaName + "." + table));
+	}
+
+	private void register(String table, String owner, String collection) {
+		Boolean registered = transactionTemplate.execute(status -> {
+			// held until commit; taken in its own statement so the INSERT's snapshot sees
+			// every registration committed by whoever held it before
+			jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext(?))", "vector_collection:" + owner);
+			int inserted = jdbcTemplate.update("""
+					INSERT INTO vector_collection (table_name, owner, collection)
+					SELECT ?, ?, ? WHERE (SELECT count(*) FROM vector_collection WHERE owner = ?) < ?
+					ON CONFLICT (table_name) DO NOTHING
+					""", table, owner, collection == null ? "" : collection.strip(), owner, maxCollectionsPerOwner);
+			return inserted > 0 || Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+					"SELECT EXISTS (SELECT 1 FROM vector_collection WHERE table_name = ?)", Boolean.class, table));
+		});
+		if (!Boolean.TRUE.equals(registered)) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT,
+					"At most " + maxCollectionsPerOwner + " collections per user");
+		}
+	}
+
+	/**
+	 * Owner recorded in chunk metadata: the authenticated user's name.
+	 */
+	public static String owner(Principal principal) {
+		return principal == null ? "anonymous" : principal.getName();
+	}
+
+	String tableFor(Principal principal, String collection) {
+		if (mode == Mode.SHARED) {
+			return baseTable;
+		}
+		String key = owner(principal);
+		if (collection != null && !collection.isBlank()) {
+			String name = collection.strip();
+			if (!COLLECTION_NAME.matcher(name).matches()) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+						"Collection names are 1-64 letters, digits, spaces, '.', '_' or '-'");
+			}
+			key = key + "/" + name;
+		}
+		return baseTable + "_" + slug(key);
+	}
+
+	/**
+	 * A readable prefix of the key plus a hash of all of it, so distinct owners never share a
+	 * table and the name stays a short, unquoted Postgres identifier.
+	 */
+	static String slug(String key) {
+		StringBuilder readable = new StringBuilder(MAX_SLUG_LENGTH);
+		for (int i = 0; i < key.length() && readable.length() < MAX_SLUG_LENGTH; i++) {
+			char c = Character.toLowerCase(key.charAt(i));
+			boolean keep = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+			if (keep) {
+				readable.append(c);
+			} else if (readable.length() > 0 && readable.charAt(readable.length() - 1) != '_') {
+				readable.append('_');
+			}
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			return readable + (readable.isEmpty() || readable.charAt(readable.length() - 1) == '_' ? "" : "_")
+					+ HexFormat.of().formatHex(digest, 0, 4);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package com.odedia.analyzer.db;
+
+import org.springframework.ai.embedding.BatchingStrategy;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.observation.VectorStoreObservationConvention;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore;
+import org.springframework.ai.vectorstore.pgvector.PgVectorStore.PgIndexType;
+import org.springframework.ai.vectorstore.pgvector.autoconfigure.PgVectorStoreProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.odedia.analyzer.db.QuantizedVectorSearch.Quantization;
+import com.odedia.analyzer.db.VectorStoreCollections.Mode;
+
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Replaces the auto-configured pgvector store with one per pool: searches run on the
+ * interactive pool with per-search HNSW settings, writes go through the ingestion pool.
+ * Both are built from the usual {@code spring.ai.vectorstore.pgvector.*} properties, as are
+ * the per-owner collection tables of {@link VectorStoreCollections}.
+ */
+@Configuration
+public class VectorStoreConfig {
+
+	private final JdbcTemplate jdbcTemplate;
+	private final JdbcTemplate ingestionJdbcTemplate;
+	private final EmbeddingModel embeddingModel;
+	private final PrecomputedQueryEmbedding queryEmbedding;
+	private final PgVectorStoreProperties properties;
+	private final BatchingStrategy batchingStrategy;
+	private final ObservationRegistry observationRegistry;
+	private final VectorStoreObservationConvention observationConvention;
+
+	@Value("${app.vectorstore.search.efSearch:100}")
+	private int efSearch;
+
+	@Value("${app.vectorstore.search.iterativeScan:off}")
+	private String iterativeScan;
+
+	@Value("${app.vectorstore.quantization:none}")
+	private String quantization;
+
+	public VectorStoreConfig(JdbcTemplate jdbcTemplate,
+			@Qualifier("ingestionJdbcTemplate") JdbcTemplate ingestionJdbcTemplate, EmbeddingModel embeddingModel,
+			PgVectorStoreProperties properties, BatchingStrategy batchingStrategy,
+			ObjectProvider<ObservationRegistry> observationRegistry,
+			ObjectProvider<VectorStoreObservationConvention> observationConvention) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.ingestionJdbcTemplate = ingestionJdbcTemplate;
+		this.embeddingModel = embeddingModel;
+		this.queryEmbedding = new PrecomputedQueryEmbedding(embeddingModel);
+		this.properties = properties;
+		this.batchingStrategy = batchingStrategy;
+		this.observationRegistry = observationRegistry.getIfUnique(() -> ObservationRegistry.NOOP);
+		this.observationConvention = observationConvention.getIfAvailable(() -> null);
+	}
+
+	/**
+	 * The interactive-pool store of the shared table. Declared as a bean so the auto-configured
+	 * one backs off and so the schema is initialized once at startup.
+	 */
+	@Bean
+	public PgVectorStore pgVectorStore() {
+		return builder(jdbcTemplate, properties.getTableName())
+				.indexType(indexType())
+				.initializeSchema(properties.isInitializeSchema())
+				.removeExistingVectorStoreTable(properties.isRemoveExistingVectorStoreTable())
+				.build();
+	}
+
+	@Bean
+	@Primary
+	public VectorStore vectorStore(PgVectorStore pgVectorStore, ObjectProvider<QuantizedVectorSearch> quantizedSearch) {
+		// same table, schema already handled by pgVectorStore
+		PgVectorStore ingestionStore = builder(ingestionJdbcTemplate, properties.getTableName())
+				.indexType(PgIndexType.NONE)
+				.initializeSchema(false)
+				.build();
+		return new TunedPgVectorStore(pgVectorStore, ingestionStore, jdbcTemplate, efSearch, iterativeScan,
+				queryEmbedding, quantizedSearch.getIfAvailable());
+	}
+
+	/**
+	 * Reduced-precision / reduced-dimension search index, enabled by
+	 * {@code app.vectorstore.quantization: halfvec | binary}. Built (and the full-precision
+	 * index dropped) through the ingestion pool when the application starts.
+	 */
+	@Bean
+	@ConditionalOnExpression("!'${app.vectorstore.quantization:none}'.equalsIgnoreCase('none')")
+	public QuantizedVectorSearch quantizedVectorSearch(
+			@Value("${app.vectorstore.indexDimensions:0}") int indexDimensions,
+			@Value("${app.vectorstore.rescoreOversample:4}") int oversample) {
+		int dimensions = properties.getDimensions() > 0 ? properties.getDimensions() : embeddingModel.dimensions();
+		return new QuantizedVectorSearch(jdbcTemplate, ingestionJdbcTemplate, properties.getSchemaName(),
+				properties.getTableName(), Quantization.from(quantization), dimensions, indexDimensions, oversample,
+				properties.getDistanceType());
+	}
+
+	/**
+	 * Builds the quantized index (or, with quantization off, drops a left-over one) before the
+	 * application reports ready. With {@code app.startup.deferred-init} this moves to the
+	 * background, see {@link #vectorSchemaInitializer}.
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "app.startup.deferred-init", havingValue = "false", matchIfMissing = true)
+	public ApplicationRunner quantizedIndexMigration(ObjectProvider<QuantizedVectorSearch> quantizedSearch) {
+		return args -> migrateIndexes(quantizedSearch.getIfAvailable(), properties.getTableName());
+	}
+
+	@Bean
+	public VectorSchemaInitializer vectorSchemaInitializer(ObjectProvider<QuantizedVectorSearch> quantizedSearch) {
+		PgVectorStore schemaStore = builder(jdbcTemplate, properties.getTableName())
+				.indexType(indexType())
+				.initializeSchema(true)
+				.build();
+		QuantizedVectorSearch search = quantizedSearch.getIfAvailable();
+		return new VectorSchemaInitializer(schemaStore, () -> migrateIndexes(search, properties.getTableName()));
+	}
+
+	/**
+	 * {@code app.vectorstore.collections: shared | owner}. Collection tables get the same pool
+	 * split, HNSW settings and quantized index as the shared table.
+	 */
+	@Bean
+	public VectorStoreCollections vectorStoreCollections(VectorStore vectorStore,
+			ObjectProvider<QuantizedVectorSearch> quantizedSearch,
+			@Value("${app.vectorstore.collections:shared}") String mode,
+			@Value("${app.vectorstore.maxCollectionsPerOwner:20}") int maxCollectionsPerOwner) {
+		return new VectorStoreCollections(Mode.from(mode), properties.getSchemaName(), properties.getTableName(),
+				vectorStore, table -> collectionStore(table, quantizedSearch.getIfAvailable()), jdbcTemplate,
+				maxCollectionsPerOwner);
+	}
+
+	private VectorStore collectionStore(String table, QuantizedVectorSearch sharedQuantizedSearch) {
+		PgVectorStore searchStore = builder(jdbcTemplate, table)
+				.indexType(indexType())
+				.initializeSchema(true)
+				.build();
+		// not a bean: create the table and its index now
+		searchStore.afterPropertiesSet();
+		PgVectorStore ingestionStore = builder(ingestionJdbcTemplate, table)
+				.indexType(PgIndexType.NONE)
+				.initializeSchema(false)
+				.build();
+		QuantizedVectorSearch quantizedSearch = sharedQuantizedSearch == null ? null : sharedQuantizedSearch.forTable(table);
+		migrateIndexes(quantizedSearch, table);
+		return new TunedPgVectorStore(searchStore, ingestionStore, jdbcTemplate, efSearch, iterativeScan,
+				queryEmbedding, quantizedSearch);
+	}
+
+	private void migrateIndexes(QuantizedVectorSearch quantizedSearch, String table) {
+		if (quantizedSearch != null) {
+			quantizedSearch.initialize();
+		} else {
+			QuantizedVectorSearch.dropReducedIndexes(ingestionJdbcTemplate, properties.getSchemaName(), table);
+		}
+	}
+
+	/**
+	 * With a quantized index, the full-precision one is neither created nor kept.
+	 */
+	private PgIndexType indexType() {
+		return Quantization.from(quantization) == Quantization.NONE ? properties.getIndexType() : PgIndexType.NONE;
+	}
+
+	private PgVectorStore.PgVectorStoreBuilder builder(JdbcTemplate jdbcTemplate, String table) {
+		return PgVectorStore.builder(jdbcTemplate, queryEmbedding)
+				.schemaName(properties.getSchemaName())
+				.idType(properties.getIdType())
+				.vectorTableName(table)
+				.vectorTableValidationsEnabled(properties.isSchemaValidation())
+				.dimensions(properties.getDimensions())
+				.distanceType(properties.getDistanceType())
+				.observationRegistry(observationRegistry)
+				.customObservationConvention(observationConvention)
+				.batchingStrategy(batchingStrategy)
+				.maxDocumentBatchSize(properties.getMaxDocumentBatchSize());
+	}
+}
@@ -0,0 +1,88 @@
+package com.odedia.analyzer.diagnostics;
+
+import java.util.stream.Collectors;
+
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.core.Ordered;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Replacement for {@code SimpleLoggerAdvisor}. Only sampled requests (or requests
+ * that set {@link #FORCE_CAPTURE}) pay for rendering the prompt into a string.
+ * Runs last in the chain so it sees the prompt after memory and retrieved
+ * context have been added.
+ */
+public class DiagnosticLoggerAdvisor implements CallAdvisor, StreamAdvisor {
+
+	public static final String FORCE_CAPTURE = "diagnostics_force_capture";
+
+	private final PromptDiagnostics diagnostics;
+
+	public DiagnosticLoggerAdvisor(PromptDiagnostics diagnostics) {
+		this.diagnostics = diagnostics;
+	}
+
+	@Override
+	public String getName() {
+		return DiagnosticLoggerAdvisor.class.getSimpleName();
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE - 100;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+		if (!diagnostics.shouldCapture(isForced(request))) {
+			return chain.nextCall(request);
+		}
+		captureRequest(request);
+		ChatClientResponse response = chain.nextCall(request);
+		captureResponse(request, response);
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+		if (!diagnostics.shouldCapture(isForced(request))) {
+			return chain.nextStream(request);
+		}
+		captureRequest(request);
+		return new ChatClientMessageAggregator().aggregateChatClientResponse(chain.nextStream(request),
+				response -> captureResponse(request, response));
+	}
+
+	private boolean isForced(ChatClientRequest request) {
+		return Boolean.TRUE.equals(request.context().get(FORCE_CAPTURE));
+	}
+
+	private void captureRequest(ChatClientRequest request) {
+		String prompt = request.prompt().getInstructions().stream()
+				.map(m -> m.getMessageType() + ": " + m.getText())
+				.collect(Collectors.joining("\n"));
+		diagnostics.capture("prompt", conversationId(request), prompt);
+	}
+
+	private void captureResponse(ChatClientRequest request, ChatClientResponse response) {
+		ChatResponse chatResponse = response.chatResponse();
+		String answer = (chatResponse == null || chatResponse.getResult() == null)
+				? ""
+				: chatResponse.getResult().getOutput().getText();
+		diagnostics.capture("answer", conversationId(request), answer);
+	}
+
+	private String conversationId(ChatClientRequest request) {
+		Object id = request.context().get(ChatMemory.CONVERSATION_ID);
+		return id == null ? "" : id.toString();
+	}
+}
@@ -0,0 +1,103 @@
+package com.odedia.analyzer.diagnostics;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sampled, size-capped capture of prompts, answers and extracted text.
+ * Everything goes to the {@value #CAPTURE_LOGGER} logger, which logback-spring.xml
+ * routes through an async appender so the request thread never waits on log I/O.
+ */
+@Component
+public class PromptDiagnostics {
+
+	public static final String CAPTURE_LOGGER = "diagnostics.capture";
+
+	private static final Logger captureLog = LoggerFactory.getLogger(CAPTURE_LOGGER);
+
+	private final double sampleRate;
+	private final int maxChars;
+	private final List<Pattern> redactPatterns;
+
+	public PromptDiagnostics(@Value("${app.diagnostics.sample-rate:0.0}") double sampleRate,
+			@Value("${app.diagnostics.max-chars:4000}") int maxChars,
+			@Value("${app.diagnostics.redact-patterns:}") String redactPatterns) {
+		this.sampleRate = sampleRate;
+		this.maxChars = maxChars;
+		// One regular expression per line
+		this.redactPatterns = redactPatterns.lines()
+				.map(String::trim)
+				.filter(p -> !p.isEmpty())
+				.map(Pattern::compile)
+				.toList();
+	}
+
+	/**
+	 * Decide once per request whether it is captured, so request and response
+	 * entries are either both logged or both skipped.
+	 */
+	public boolean shouldCapture(boolean forced) {
+		if (!captureLog.isInfoEnabled()) {
+			return false;
+		}
+		if (forced) {
+			return true;
+		}
+		return sampleRate > 0 && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+	}
+
+	public void capture(String phase, String conversationId, String text) {
+		captureLog.atInfo()
+				.addKeyValue("phase", phase)
+				.addKeyValue("conversationId", conversationId)
+				.addKeyValue("chars", text == null ? 0 : text.length())
+				.setMessage(() -> sanitize(text))
+				.log();
+	}
+
+	/**
+	 * Capture the text extracted from an uploaded document, one entry per page.
+	 */
+	public void captureDocument(String filename, List<String> pages) {
+		if (!shouldCapture(false)) {
+			return;
+		}
+		for (int i = 0; i < pages.size(); i++) {
+			capturePage(filename, i + 1, pages.get(i));
+		}
+	}
+
+	/**
+	 * Capture one extracted page; for streamed extraction, where the caller decides
+	 * {@link #shouldCapture(boolean)} once per document.
+	 */
+	public void capturePage(String filename, int pageNumber, String page) {
+		captureLog.atInfo()
+				.addKeyValue("phase", "extract")
+				.addKeyValue("filename", filename)
+				.addKeyValue("page", pageNumber)
+				.addKeyValue("chars", page.length())
+				.setMessage(() -> sanitize(page))
+				.log();
+	}
+
+	String sanitize(String text) {
+		if (text == null) {
+			return "";
+		}
+		// Truncate before redacting so we never run the patterns over megabytes of text.
+		String capped = text.length() > maxChars
+				? text.substring(0, maxChars) + "…[+" + (text.length() - maxChars) + " chars]"
+				: text;
+		for (Pattern pattern : redactPatterns) {
+			capped = pattern.matcher(capped).replaceAll("[REDACTED]");
+		}
+		return capped;
+	}
+}
@@ -2,13 +2,25 @@ package com.odedia.analyzer.dto;
 
 import java.util.List;
 
+import com.odedia.analyzer.rtl.ScriptStatistics;
+
 public class PDFData {
     private final List<String> stringPages;
     private final String language;
+    private final List<ScriptStatistics> pageStatistics;
+    private final ScriptStatistics documentStatistics;
+    private final List<String> headers;
+    private final List<String> footers;
 
-    public PDFData(List<String> stringPages, String language) {
+    public PDFData(List<String> stringPages, String language,
+            List<ScriptStatistics> pageStatistics, ScriptStatistics documentStatistics,
+            List<String> headers, List<String> footers) {
         this.stringPages = stringPages;
         this.language = language;
+        this.pageStatistics = pageStatistics;
+        this.documentStatistics = documentStatistics;
+        this.headers = headers;
+        this.footers = footers;
     }
 
     public List<String> getStringPages() {
@@ -18,4 +30,26 @@ public class PDFData {
     public String getLanguage() {
         return language;
     }
+
+    /**
+     * Script counts of each cleaned page, in the same order as {@link #getStringPages()}.
+     */
+    public List<ScriptStatistics> getPageStatistics() {
+        return pageStatistics;
+    }
+
+    public ScriptStatistics getDocumentStatistics() {
+        return documentStatistics;
+    }
+
+    /**
+     * Running headers removed from the pages, one entry per distinct header.
+     */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public List<String> getFooters() {
+        return footers;
+    }
 }
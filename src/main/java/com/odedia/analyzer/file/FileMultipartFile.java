@@ -13,8 +13,15 @@ public class FileMultipartFile implements MultipartFile {
     private final String name;
 
     public FileMultipartFile(File file) {
+        this(file, file.getName());
+    }
+
+    /**
+     * For staged files stored under a generated name.
+     */
+    public FileMultipartFile(File file, String originalFilename) {
         this.file = file;
-        this.name = file.getName();
+        this.name = originalFilename;
     }
 
     @Override
@@ -0,0 +1,199 @@
+package com.odedia.analyzer.memory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.DisposableBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the message windows of active conversations in memory and writes them back to
+ * the wrapped repository asynchronously, so a chat turn no longer reads and rewrites
+ * the conversation in Postgres.
+ * <p>
+ * Writes go to a pending map first and are flushed by a single writer thread; several
+ * saves of one conversation before its flush runs collapse into one write. Reads check
+ * the pending map before the cache, so an evicted but unflushed conversation is never
+ * read back stale. Pending writes are flushed before the bean is destroyed.
+ */
+public class CachingChatMemoryRepository implements ChatMemoryRepository, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(CachingChatMemoryRepository.class);
+
+	private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
+	private final ChatMemoryRepository delegate;
+	private final int maxConversations;
+	private final long idleNanos;
+	private final Duration shutdownTimeout;
+
+	private final Map<String, CachedConversation> cache;
+	private final Map<String, List<Message>> pending = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "chat-memory-write-behind");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public CachingChatMemoryRepository(ChatMemoryRepository delegate, int maxConversations, Duration idleTimeout,
+			Duration shutdownTimeout, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.maxConversations = maxConversations;
+		this.idleNanos = idleTimeout.toNanos();
+		this.shutdownTimeout = shutdownTimeout;
+		// access-ordered, so the eldest entry is the least recently used one
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedConversation> eldest) {
+				return size() > CachingChatMemoryRepository.this.maxConversations;
+			}
+		};
+
+		long sweep = Math.max(idleTimeout.toMillis() / 2, 1000);
+		writer.scheduleWithFixedDelay(this::evictIdle, sweep, sweep, TimeUnit.MILLISECONDS);
+
+		Gauge.builder("chat.memory.cache.size", this, CachingChatMemoryRepository::cacheSize).register(meterRegistry);
+		Gauge.builder("chat.memory.writebehind.pending", pending, Map::size).register(meterRegistry);
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+		Set<String> ids = new LinkedHashSet<>(delegate.findConversationIds());
+		ids.addAll(pending.keySet());
+		return new ArrayList<>(ids);
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+		List<Message> unflushed = pending.get(conversationId);
+		if (unflushed != null) {
+			return new ArrayList<>(unflushed);
+		}
+		synchronized (cache) {
+			CachedConversation cached = cache.get(conversationId);
+			if (cached != null && !cached.isIdle(System.nanoTime())) {
+				cached.touch();
+				return new ArrayList<>(cached.messages);
+			}
+		}
+		List<Message> loaded = List.copyOf(delegate.findByConversationId(conversationId));
+		synchronized (cache) {
+			// a save that raced with the load wins
+			cache.putIfAbsent(conversationId, new CachedConversation(loaded));
+		}
+		return new ArrayList<>(loaded);
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+		List<Message> snapshot = List.copyOf(messages);
+		synchronized (cache) {
+			cache.put(conversationId, new CachedConversation(snapshot));
+		}
+		if (pending.put(conversationId, snapshot) == null) {
+			writer.execute(() -> flush(conversationId));
+		}
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+		pending.remove(conversationId);
+		synchronized (cache) {
+			cache.remove(conversationId);
+		}
+		// through the writer thread, so an in-flight flush cannot re-create the rows afterwards
+		try {
+			writer.submit(() -> delegate.deleteByConversationId(conversationId)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted deleting conversation " + conversationId, e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to delete conversation " + conversationId, e.getCause());
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		writer.shutdown();
+		if (!writer.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+			logger.warn("Chat memory writer did not finish within {}", shutdownTimeout);
+			writer.shutdownNow();
+		}
+		// whatever is still pending (failed writes awaiting retry, or a timed-out writer)
+		for (Map.Entry<String, List<Message>> entry : pending.entrySet()) {
+			try {
+				delegate.saveAll(entry.getKey(), entry.getValue());
+			} catch (RuntimeException e) {
+				logger.error("Lost chat memory of conversation {} on shutdown", entry.getKey(), e);
+			}
+		}
+		pending.clear();
+	}
+
+	private void flush(String conversationId) {
+		List<Message> messages = pending.get(conversationId);
+		if (messages == null) {
+			return;
+		}
+		try {
+			delegate.saveAll(conversationId, messages);
+		} catch (RuntimeException e) {
+			logger.warn("Write-behind of conversation {} failed, retrying in {}", conversationId, RETRY_DELAY, e);
+			if (!writer.isShutdown()) {
+				writer.schedule(() -> flush(conversationId), RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+			}
+			return;
+		}
+		// a newer save arrived while writing; it did not schedule a flush of its own
+		if (!pending.remove(conversationId, messages)) {
+			writer.execute(() -> flush(conversationId));
+		}
+	}
+
+	private void evictIdle() {
+		long now = System.nanoTime();
+		synchronized (cache) {
+			cache.values().removeIf(cached -> cached.isIdle(now));
+		}
+	}
+
+	private int cacheSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	private final class CachedConversation {
+
+		private final List<Message> messages;
+		private long lastAccess = System.nanoTime();
+
+		private CachedConversation(List<Message> messages) {
+			this.messages = messages;
+		}
+
+		private void touch() {
+			lastAccess = System.nanoTime();
+		}
+
+		private boolean isIdle(long now) {
+			return now - lastAccess > idleNanos;
+		}
+	}
+}
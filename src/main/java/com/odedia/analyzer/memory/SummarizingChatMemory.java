@@ -0,0 +1,209 @@
+package com.odedia.analyzer.memory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Chat memory that keeps the last {@code recentMessages} messages verbatim and folds older
+ * ones into a rolling summary, so the prompt stays about the same size however long the
+ * conversation gets.
+ * <p>
+ * The summary is stored as a leading {@link SystemMessage} in the repository (the memory
+ * advisor only ever stores user and assistant messages, so it cannot be confused with one).
+ * Folding runs on a background thread after an answer is added, and only once
+ * {@code foldMessages} messages beyond the recent ones have piled up, so each summarization
+ * call folds a batch and never competes with the answer it follows. Until then {@link #get}
+ * returns the unfolded messages verbatim.
+ */
+public class SummarizingChatMemory implements ChatMemory, DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(SummarizingChatMemory.class);
+
+	private static final String SUMMARY_PREFIX = "Summary of the earlier conversation:\n";
+
+	private final ChatMemoryRepository repository;
+	private final ChatClient chatClient;
+	private final String summaryInstructions;
+	private final int recentMessages;
+	private final int foldMessages;
+	private final int maxSummaryChars;
+
+	private final Object[] locks = new Object[64];
+	private final Set<String> summarizing = ConcurrentHashMap.newKeySet();
+	private final ExecutorService summarizer = Executors.newFixedThreadPool(2, r -> {
+		Thread thread = new Thread(r, "chat-memory-summarizer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public SummarizingChatMemory(ChatMemoryRepository repository, ChatClient chatClient, String summaryInstructions,
+			int recentMessages, int foldMessages, int maxSummaryChars) {
+		this.repository = repository;
+		this.chatClient = chatClient;
+		this.summaryInstructions = summaryInstructions.strip()
+				+ "\nKeep the summary under " + maxSummaryChars + " characters.";
+		this.recentMessages = recentMessages;
+		this.foldMessages = Math.max(1, foldMessages);
+		this.maxSummaryChars = maxSummaryChars;
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public void add(String conversationId, List<Message> messages) {
+		int turns;
+		synchronized (lockFor(conversationId)) {
+			List<Message> stored = new ArrayList<>(repository.findByConversationId(conversationId));
+			stored.addAll(messages);
+			repository.saveAll(conversationId, stored);
+			turns = stored.size() - (hasSummary(stored) ? 1 : 0);
+		}
+		// the user message is added before the model call; summarize after the answer instead
+		boolean answered = messages.stream().anyMatch(m -> m.getMessageType() == MessageType.ASSISTANT);
+		if (answered && turns >= recentMessages + foldMessages && summarizing.add(conversationId)) {
+			summarizer.execute(() -> {
+				try {
+					summarize(conversationId);
+				} catch (RuntimeException e) {
+					logger.warn("Summarizing conversation {} failed; will retry after the next turn", conversationId, e);
+				} finally {
+					summarizing.remove(conversationId);
+				}
+			});
+		}
+	}
+
+	@Override
+	public List<Message> get(String conversationId) {
+		List<Message> stored = repository.findByConversationId(conversationId);
+		// unfolded messages stay in the prompt; the cap only matters if summarizing keeps failing
+		int window = recentMessages + foldMessages;
+		List<Message> result = new ArrayList<>(window + 1);
+		int firstTurn = 0;
+		if (hasSummary(stored)) {
+			result.add(stored.get(0));
+			firstTurn = 1;
+		}
+		result.addAll(stored.subList(Math.max(firstTurn, stored.size() - window), stored.size()));
+		return result;
+	}
+
+	@Override
+	public void clear(String conversationId) {
+		synchronized (lockFor(conversationId)) {
+			repository.deleteByConversationId(conversationId);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		summarizer.shutdown();
+		summarizer.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	private void summarize(String conversationId) {
+		List<Message> stored = repository.findByConversationId(conversationId);
+		String previous = hasSummary(stored) ? summaryText(stored.get(0)) : "";
+		List<Message> turns = stored.subList(hasSummary(stored) ? 1 : 0, stored.size());
+		int fold = turns.size() - recentMessages;
+		if (fold <= 0) {
+			return;
+		}
+		List<Message> folded = List.copyOf(turns.subList(0, fold));
+
+		StringBuilder transcript = new StringBuilder();
+		if (!previous.isEmpty()) {
+			transcript.append("Current summary:\n").append(previous).append("\n\n");
+		}
+		transcript.append("New messages:\n");
+		for (Message message : folded) {
+			transcript.append(message.getMessageType().getValue().toUpperCase()).append(": ")
+					.append(message.getText()).append('\n');
+		}
+		String summary = chatClient.prompt()
+				.system(summaryInstructions)
+				.user(transcript.toString())
+				.call()
+				.content();
+		if (summary == null || summary.isBlank()) {
+			return;
+		}
+		summary = truncate(summary.strip(), maxSummaryChars);
+
+		synchronized (lockFor(conversationId)) {
+			// turns added (or the conversation cleared) meanwhile: only replace what was folded
+			List<Message> current = repository.findByConversationId(conversationId);
+			List<Message> currentTurns = current.subList(hasSummary(current) ? 1 : 0, current.size());
+			if (!startsWith(currentTurns, folded)) {
+				return;
+			}
+			List<Message> updated = new ArrayList<>(currentTurns.size() - fold + 1);
+			updated.add(new SystemMessage(SUMMARY_PREFIX + summary));
+			updated.addAll(currentTurns.subList(fold, currentTurns.size()));
+			repository.saveAll(conversationId, updated);
+		}
+		logger.debug("Folded {} messages of conversation {} into a {}-char summary", fold, conversationId,
+				summary.length());
+	}
+
+	/**
+	 * Backstop for models that ignore the length instruction: cuts at the last whitespace
+	 * before {@code max}, never inside a word or a surrogate pair.
+	 */
+	static String truncate(String text, int max) {
+		if (text.length() <= max) {
+			return text;
+		}
+		int cut = max;
+		while (cut > 0 && !Character.isWhitespace(text.charAt(cut))) {
+			cut--;
+		}
+		if (cut == 0) {
+			cut = Character.isLowSurrogate(text.charAt(max)) ? max - 1 : max;
+		}
+		return text.substring(0, cut).stripTrailing();
+	}
+
+	private static boolean hasSummary(List<Message> messages) {
+		return !messages.isEmpty() && messages.get(0).getMessageType() == MessageType.SYSTEM;
+	}
+
+	private static String summaryText(Message summary) {
+		String text = summary.getText();
+		return text.startsWith(SUMMARY_PREFIX) ? text.substring(SUMMARY_PREFIX.length()) : text;
+	}
+
+	private static boolean startsWith(List<Message> messages, List<Message> prefix) {
+		if (messages.size() < prefix.size()) {
+			return false;
+		}
+		for (int i = 0; i < prefix.size(); i++) {
+			Message a = messages.get(i);
+			Message b = prefix.get(i);
+			if (a.getMessageType() != b.getMessageType() || !a.getText().equals(b.getText())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Object lockFor(String conversationId) {
+		return locks[(conversationId.hashCode() & 0x7fffffff) % locks.length];
+	}
+}
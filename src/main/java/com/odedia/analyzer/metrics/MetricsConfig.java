@@ -0,0 +1,45 @@
+package com.odedia.analyzer.metrics;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationFilter;
+import io.micrometer.observation.ObservationView;
+
+@Configuration
+public class MetricsConfig {
+
+	/**
+	 * Spring AI already observes embedding calls ({@code gen_ai.client.operation}) and
+	 * vector searches ({@code db.vector.client.operation}). Copy the chat language from
+	 * the enclosing {@code rag.query} observation onto them so the embedding and search
+	 * timers can be split the same way as our own stage timers. Observations outside a
+	 * query (e.g. ingestion) get "none", keeping the tag keys of each meter stable.
+	 */
+	@Bean
+	ObservationFilter chatLanguageObservationFilter() {
+		return context -> {
+			String name = context.getName();
+			if (!"gen_ai.client.operation".equals(name) && !"db.vector.client.operation".equals(name)) {
+				return context;
+			}
+			context.addLowCardinalityKeyValue(KeyValue.of("language", enclosingQueryLanguage(context)));
+			return context;
+		};
+	}
+
+	private static String enclosingQueryLanguage(Observation.Context context) {
+		ObservationView parent = context.getParentObservation();
+		while (parent != null) {
+			Observation.ContextView view = parent.getContextView();
+			if (RagQueryMetrics.QUERY_OBSERVATION.equals(view.getName())) {
+				KeyValue language = view.getLowCardinalityKeyValue("language");
+				return language == null ? "none" : language.getValue();
+			}
+			parent = view.getParentObservation();
+		}
+		return "none";
+	}
+}
@@ -0,0 +1,71 @@
+package com.odedia.analyzer.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.observation.Observation;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Per-query stopwatch. Each {@link #lap(String)} records the time since the previous
+ * lap under the given stage name. Laps may be taken from different threads as the
+ * reactive chain hops schedulers, hence the volatile fields.
+ */
+public class QueryStageClock {
+
+	public static final String CONTEXT_KEY = "rag_query_stage_clock";
+
+	private final RagQueryMetrics metrics;
+	private final Observation observation;
+	private final String language;
+	private final long startNanos = System.nanoTime();
+	private final AtomicInteger tokens = new AtomicInteger();
+	private volatile long lastLapNanos = startNanos;
+	private volatile long firstTokenNanos;
+
+	QueryStageClock(RagQueryMetrics metrics, Observation observation, String language) {
+		this.metrics = metrics;
+		this.observation = observation;
+		this.language = language;
+	}
+
+	public void lap(String stage) {
+		long now = System.nanoTime();
+		metrics.recordStage(this, stage, now - lastLapNanos);
+		lastLapNanos = now;
+	}
+
+	/**
+	 * Restart the lap timer without recording, e.g. to skip time spent queued on a scheduler.
+	 */
+	public void mark() {
+		lastLapNanos = System.nanoTime();
+	}
+
+	public void token() {
+		if (tokens.getAndIncrement() == 0) {
+			firstTokenNanos = System.nanoTime();
+			metrics.recordFirstToken(this, firstTokenNanos - startNanos);
+		}
+	}
+
+	public void finish(SignalType signal) {
+		if (firstTokenNanos != 0) {
+			metrics.recordTokenRate(this, tokens.get() - 1, System.nanoTime() - firstTokenNanos);
+		}
+		observation.lowCardinalityKeyValue("outcome", signal == SignalType.ON_COMPLETE ? "success"
+				: signal == SignalType.CANCEL ? "cancelled" : "error");
+		observation.stop();
+	}
+
+	public void error(Throwable error) {
+		observation.error(error);
+	}
+
+	public Observation observation() {
+		return observation;
+	}
+
+	String language() {
+		return language;
+	}
+}
@@ -0,0 +1,84 @@
+package com.odedia.analyzer.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Timers for the stages of a {@code /document/query} call. Each query gets a
+ * {@link QueryStageClock}; stages are recorded as laps on that clock, and the whole
+ * query is a {@value #QUERY_OBSERVATION} observation so the Spring AI chat, embedding
+ * and vector store observations nest under it as child spans.
+ */
+@Component
+public class RagQueryMetrics {
+
+	public static final String QUERY_OBSERVATION = "rag.query";
+	static final String STAGE_TIMER = "rag.query.stage";
+	static final String TTFT_TIMER = "rag.query.ttft";
+	static final String TOKEN_RATE = "rag.query.tokens.rate";
+
+	private final ObservationRegistry observationRegistry;
+	private final String model;
+	// built once; per-lap recording only resolves the (stage, language) tags
+	private final Meter.MeterProvider<Timer> stageTimers;
+	private final Meter.MeterProvider<Timer> firstTokenTimers;
+	private final Meter.MeterProvider<DistributionSummary> tokenRates;
+
+	public RagQueryMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry, ChatModel chatModel) {
+		this.observationRegistry = observationRegistry;
+		ChatOptions options = chatModel.getDefaultOptions();
+		this.model = (options == null || options.getModel() == null) ? "unknown" : options.getModel();
+		this.stageTimers = Timer.builder(STAGE_TIMER)
+				.description("Time spent in one stage of a RAG query")
+				.tag("model", model)
+				.withRegistry(meterRegistry);
+		this.firstTokenTimers = Timer.builder(TTFT_TIMER)
+				.description("Time from receiving the question to the first streamed token")
+				.tag("model", model)
+				.withRegistry(meterRegistry);
+		this.tokenRates = DistributionSummary.builder(TOKEN_RATE)
+				.description("Streamed tokens per second after the first token")
+				.baseUnit("tokens/s")
+				.tag("model", model)
+				.withRegistry(meterRegistry);
+	}
+
+	public QueryStageClock start(String chatLanguage) {
+		String language = chatLanguage == null ? "unknown" : chatLanguage;
+		Observation observation = Observation.createNotStarted(QUERY_OBSERVATION, observationRegistry)
+				.contextualName("rag query")
+				.lowCardinalityKeyValue("model", model)
+				.lowCardinalityKeyValue("language", language)
+				.start();
+		return new QueryStageClock(this, observation, language);
+	}
+
+	void recordStage(QueryStageClock clock, String stage, long nanos) {
+		stageTimers.withTags("stage", stage, "language", clock.language())
+				.record(nanos, TimeUnit.NANOSECONDS);
+		clock.observation().event(Observation.Event.of(STAGE_TIMER + "." + stage));
+	}
+
+	void recordFirstToken(QueryStageClock clock, long nanos) {
+		firstTokenTimers.withTags("language", clock.language())
+				.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	void recordTokenRate(QueryStageClock clock, int tokens, long nanos) {
+		if (tokens == 0 || nanos <= 0) {
+			return;
+		}
+		tokenRates.withTags("language", clock.language())
+				.record(tokens / (nanos / 1_000_000_000.0));
+	}
+}
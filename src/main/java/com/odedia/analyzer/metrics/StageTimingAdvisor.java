@@ -0,0 +1,105 @@
+package com.odedia.analyzer.metrics;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
+import org.springframework.ai.chat.client.advisor.api.CallAdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisor;
+import org.springframework.ai.chat.client.advisor.api.StreamAdvisorChain;
+import org.springframework.core.Ordered;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Marker advisor that takes a lap on the request's {@link QueryStageClock} when the
+ * chain passes through it, and optionally again when the response completes.
+ * Instances are placed between the real advisors so each lap measures the advisor
+ * in front of it:
+ * <pre>
+ *   beforeMemory -> MessageChatMemoryAdvisor -> afterMemory -> QuestionAnswerAdvisor -> beforeModel -> model
+ * </pre>
+ */
+public class StageTimingAdvisor implements CallAdvisor, StreamAdvisor {
+
+	private final String name;
+	private final String stageOnRequest;
+	private final String stageOnComplete;
+	private final int order;
+
+	private StageTimingAdvisor(String name, String stageOnRequest, String stageOnComplete, int order) {
+		this.name = name;
+		this.stageOnRequest = stageOnRequest;
+		this.stageOnComplete = stageOnComplete;
+		this.order = order;
+	}
+
+	/** Outermost: starts the memory read lap, and measures the memory write after the answer completes. */
+	public static StageTimingAdvisor beforeMemory() {
+		return new StageTimingAdvisor("StageTimingBeforeMemory", null, "memory.write",
+				Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER - 1);
+	}
+
+	public static StageTimingAdvisor afterMemory() {
+		return new StageTimingAdvisor("StageTimingAfterMemory", "memory.read", null,
+				Advisor.DEFAULT_CHAT_MEMORY_PRECEDENCE_ORDER + 1);
+	}
+
+	/** Innermost: covers query embedding + vector search, then the model generation. */
+	public static StageTimingAdvisor beforeModel() {
+		return new StageTimingAdvisor("StageTimingBeforeModel", "retrieval", "generation",
+				Ordered.LOWEST_PRECEDENCE - 50);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int getOrder() {
+		return order;
+	}
+
+	@Override
+	public ChatClientResponse adviseCall(ChatClientRequest request, CallAdvisorChain chain) {
+		QueryStageClock clock = clock(request);
+		onRequest(clock);
+		ChatClientResponse response = chain.nextCall(request);
+		onComplete(clock);
+		return response;
+	}
+
+	@Override
+	public Flux<ChatClientResponse> adviseStream(ChatClientRequest request, StreamAdvisorChain chain) {
+		QueryStageClock clock = clock(request);
+		if (clock == null) {
+			return chain.nextStream(request);
+		}
+		return Flux.defer(() -> {
+			onRequest(clock);
+			return chain.nextStream(request);
+		}).doOnComplete(() -> onComplete(clock));
+	}
+
+	private void onRequest(QueryStageClock clock) {
+		if (clock == null) {
+			return;
+		}
+		if (stageOnRequest == null) {
+			clock.mark();
+		} else {
+			clock.lap(stageOnRequest);
+		}
+	}
+
+	private void onComplete(QueryStageClock clock) {
+		if (clock != null && stageOnComplete != null) {
+			clock.lap(stageOnComplete);
+		}
+	}
+
+	private QueryStageClock clock(ChatClientRequest request) {
+		return (QueryStageClock) request.context().get(QueryStageClock.CONTEXT_KEY);
+	}
+}
@@ -0,0 +1,40 @@
+package com.odedia.analyzer.prompt;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+
+/**
+ * System text and RAG prompt template of one language variant, built when the templates are
+ * loaded. The question-answer advisor is built once per vector store and reused by every query
+ * against it, until the next reload replaces this instance.
+ */
+public final class CompiledPrompt {
+
+	private final String systemText;
+	private final PromptTemplate template;
+	private final SearchRequest searchRequest;
+	private final Map<VectorStore, Advisor> questionAnswerAdvisors = new ConcurrentHashMap<>();
+
+	CompiledPrompt(String systemText, PromptTemplate template, SearchRequest searchRequest) {
+		this.systemText = systemText;
+		this.template = template;
+		this.searchRequest = searchRequest;
+	}
+
+	public String systemText() {
+		return systemText;
+	}
+
+	public Advisor questionAnswerAdvisor(VectorStore vectorStore) {
+		return questionAnswerAdvisors.computeIfAbsent(vectorStore, store -> QuestionAnswerAdvisor.builder(store)
+				.searchRequest(searchRequest)
+				.promptTemplate(template)
+				.build());
+	}
+}
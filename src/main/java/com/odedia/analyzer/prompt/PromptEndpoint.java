@@ -0,0 +1,32 @@
+package com.odedia.analyzer.prompt;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/prompts} shows which templates are loaded; {@code POST} reloads them.
+ */
+@Component
+@Endpoint(id = "prompts")
+public class PromptEndpoint {
+
+	private final PromptPipeline pipeline;
+
+	public PromptEndpoint(PromptPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	@ReadOperation
+	public Map<String, Object> prompts() {
+		return pipeline.status();
+	}
+
+	@WriteOperation
+	public Map<String, Object> reload() {
+		return pipeline.reload();
+	}
+}
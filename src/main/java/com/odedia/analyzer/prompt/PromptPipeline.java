@@ -0,0 +1,204 @@
+package com.odedia.analyzer.prompt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.client.advisor.api.Advisor;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.prompt.PromptTemplate;
+import org.springframework.ai.template.st.StTemplateRenderer;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.odedia.analyzer.diagnostics.DiagnosticLoggerAdvisor;
+import com.odedia.analyzer.diagnostics.PromptDiagnostics;
+import com.odedia.analyzer.metrics.StageTimingAdvisor;
+
+/**
+ * Builds the query prompts once instead of per question: the system text for each chat
+ * language (with the {@code app.ai.beChatty} instruction appended), the RAG prompt template,
+ * and the advisors every query shares.
+ * <p>
+ * Templates come from {@code app.ai.systemText} / {@code app.ai.promptTemplate}, unless the
+ * {@code app.ai.prompts.overrides} directory holds {@code default.system.txt} /
+ * {@code default.prompt.st}. A collection (the {@code X-Collection} header) can override either
+ * with {@code <collection>.system.txt} and {@code <collection>.prompt.st} in the same directory.
+ * {@link #reload()} (also {@code POST /actuator/prompts}) re-reads the directory and swaps the
+ * prompts in atomically; a reload with an invalid template keeps the previous prompts. The
+ * application properties themselves are only read at startup.
+ */
+@Component
+public class PromptPipeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(PromptPipeline.class);
+
+	private static final String SYSTEM_SUFFIX = ".system.txt";
+	private static final String TEMPLATE_SUFFIX = ".prompt.st";
+
+	private static final String[] LANGUAGES = { "en", "he" };
+
+	/** Override file name prefix that replaces the configured templates for every collection. */
+	private static final String DEFAULT_OVERRIDE = "default";
+
+	private final String configuredSystemText;
+	private final String configuredPromptTemplate;
+	private final boolean beChatty;
+	private final Path overrides;
+	private final SearchRequest searchRequest;
+	private final List<Advisor> advisors;
+
+	private volatile Snapshot snapshot;
+	private volatile String lastError;
+
+	public PromptPipeline(Environment environment, ChatMemory chatMemory, PromptDiagnostics diagnostics,
+			@Value("${app.ai.topk}") int topK,
+			@Value("${app.ai.prompts.overrides:}") String overrides) {
+		this.configuredSystemText = environment.getRequiredProperty("app.ai.systemText");
+		this.configuredPromptTemplate = environment.getRequiredProperty("app.ai.promptTemplate");
+		this.beChatty = "yes".equals(environment.getProperty("app.ai.beChatty"));
+		this.overrides = overrides.isBlank() ? null : Path.of(overrides);
+		this.searchRequest = SearchRequest.builder().topK(topK).build();
+		// the conversation id comes from the ChatMemory.CONVERSATION_ID request parameter
+		this.advisors = List.of(
+				StageTimingAdvisor.beforeMemory(),
+				StageTimingAdvisor.afterMemory(),
+				StageTimingAdvisor.beforeModel(),
+				new DiagnosticLoggerAdvisor(diagnostics),
+				MessageChatMemoryAdvisor.builder(chatMemory).build());
+		this.snapshot = load();
+	}
+
+	/**
+	 * Prompt for a query in {@code language} ("he" or anything else for English) against
+	 * {@code collection}, which may be null.
+	 */
+	public CompiledPrompt select(String collection, String language) {
+		Snapshot current = snapshot;
+		CompiledPrompt[] variants = collection == null
+				? current.defaults()
+				: current.collections().getOrDefault(collection.strip(), current.defaults());
+		return variants["he".equals(language) ? 1 : 0];
+	}
+
+	/**
+	 * Advisors shared by every query: stage timing, sampled diagnostics and chat memory.
+	 */
+	public List<Advisor> advisors() {
+		return advisors;
+	}
+
+	/**
+	 * Re-reads the override directory, including its default templates.
+	 *
+	 * @return {@link #status()} after the attempt
+	 */
+	public synchronized Map<String, Object> reload() {
+		try {
+			snapshot = load();
+			lastError = null;
+			logger.info("Reloaded prompt templates; collection overrides: {}", snapshot.collections().keySet());
+		} catch (RuntimeException e) {
+			lastError = e.getMessage();
+			logger.warn("Prompt reload failed, keeping the previous templates: {}", e.getMessage());
+		}
+		return status();
+	}
+
+	public Map<String, Object> status() {
+		Snapshot current = snapshot;
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("loadedAt", current.loadedAt().toString());
+		status.put("beChatty", current.beChatty());
+		status.put("overrides", overrides == null ? "" : overrides.toString());
+		status.put("collections", new TreeSet<>(current.collections().keySet()));
+		if (lastError != null) {
+			status.put("lastError", lastError);
+		}
+		return status;
+	}
+
+	private Snapshot load() {
+		Map<String, String[]> texts = readOverrides();
+		String[] defaults = texts.remove(DEFAULT_OVERRIDE);
+		String systemText = defaults != null && defaults[0] != null ? defaults[0] : configuredSystemText;
+		String promptTemplate = defaults != null && defaults[1] != null ? defaults[1] : configuredPromptTemplate;
+
+		Map<String, CompiledPrompt[]> collections = new HashMap<>();
+		for (Map.Entry<String, String[]> override : texts.entrySet()) {
+			String[] pair = override.getValue();
+			collections.put(override.getKey(), compile(override.getKey(),
+					pair[0] != null ? pair[0] : systemText,
+					pair[1] != null ? pair[1] : promptTemplate,
+					beChatty));
+		}
+		return new Snapshot(compile(DEFAULT_OVERRIDE, systemText, promptTemplate, beChatty), Map.copyOf(collections),
+				beChatty, Instant.now());
+	}
+
+	private CompiledPrompt[] compile(String name, String systemText, String promptTemplate, boolean beChatty) {
+		if (!promptTemplate.contains("<query>") || !promptTemplate.contains("<question_answer_context>")) {
+			throw new IllegalArgumentException(
+					"Prompt template '" + name + "' must contain <query> and <question_answer_context>");
+		}
+		PromptTemplate template = PromptTemplate.builder()
+				.renderer(StTemplateRenderer.builder()
+						.startDelimiterToken('<')
+						.endDelimiterToken('>')
+						.build())
+				.template(promptTemplate)
+				.build();
+
+		String chattiness = beChatty
+				? "Try to engage in conversation and invoke a dialog."
+				: "Never ask the user questions back.";
+		CompiledPrompt[] variants = new CompiledPrompt[LANGUAGES.length];
+		for (int i = 0; i < LANGUAGES.length; i++) {
+			String language = "he".equals(LANGUAGES[i]) ? "You must respond in Hebrew. " : "You must respond in English. ";
+			variants[i] = new CompiledPrompt(systemText + chattiness + language, template, searchRequest);
+		}
+		return variants;
+	}
+
+	/**
+	 * Collection name to {system text, prompt template}; either may be null.
+	 */
+	private Map<String, String[]> readOverrides() {
+		Map<String, String[]> texts = new HashMap<>();
+		if (overrides == null || !Files.isDirectory(overrides)) {
+			return texts;
+		}
+		try (Stream<Path> files = Files.list(overrides)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				String name = file.getFileName().toString();
+				int slot = name.endsWith(SYSTEM_SUFFIX) ? 0 : name.endsWith(TEMPLATE_SUFFIX) ? 1 : -1;
+				if (slot < 0 || !Files.isRegularFile(file)) {
+					continue;
+				}
+				String collection = name.substring(0, name.length() - (slot == 0 ? SYSTEM_SUFFIX : TEMPLATE_SUFFIX).length());
+				texts.computeIfAbsent(collection, c -> new String[2])[slot] = Files.readString(file, StandardCharsets.UTF_8);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read prompt overrides from " + overrides, e);
+		}
+		return texts;
+	}
+
+	private record Snapshot(CompiledPrompt[] defaults, Map<String, CompiledPrompt[]> collections, boolean beChatty,
+			Instant loadedAt) {
+	}
+}
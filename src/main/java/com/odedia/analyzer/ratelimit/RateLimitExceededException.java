@@ -0,0 +1,27 @@
+package com.odedia.analyzer.ratelimit;
+
+/**
+ * A per-user budget is used up; {@link #getRetryAfterSeconds()} says when to try again, or is -1
+ * when the request is larger than the whole budget.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+	private final RateLimiter.Budget budget;
+	private final long retryAfterSeconds;
+
+	public RateLimitExceededException(RateLimiter.Budget budget, long retryAfterSeconds) {
+		super(retryAfterSeconds < 0
+				? budget.description() + " request is larger than the whole per-user budget"
+				: budget.description() + " quota used up; retry in " + retryAfterSeconds + " s");
+		this.budget = budget;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public RateLimiter.Budget getBudget() {
+		return budget;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
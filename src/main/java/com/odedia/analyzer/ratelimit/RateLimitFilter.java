@@ -0,0 +1,99 @@
+package com.odedia.analyzer.ratelimit;
+
+import java.io.IOException;
+import java.security.Principal;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.odedia.analyzer.ratelimit.RateLimiter.Budget;
+import com.odedia.analyzer.ratelimit.RateLimiter.Decision;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies the per-user budgets before a request reaches the controllers: one query per
+ * {@code /document/query} call, and the request's Content-Length against the upload budget
+ * for {@code analyze}, resumable upload parts and imports. Runs after Spring Security, so the
+ * user is the authenticated principal; requests without one are not limited.
+ * A refused request gets {@code 429 Too Many Requests} with {@code Retry-After}, or
+ * {@code 413} if it could never fit the budget. Uploads without a Content-Length (chunked)
+ * get {@code 411}, since their size is only known once the controller has read them.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private final RateLimiter limiter;
+
+	public RateLimitFilter(RateLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		Principal principal = request.getUserPrincipal();
+		Budget budget = budget(request);
+		if (principal == null || budget == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		Decision decision;
+		if (budget == Budget.QUERIES) {
+			decision = limiter.tryAcquire(budget, principal.getName(), 1);
+		} else if (request.getContentLengthLong() >= 0) {
+			decision = limiter.tryAcquire(budget, principal.getName(), request.getContentLengthLong());
+		} else if (limiter.isEnabled()) {
+			// chunked: the body is read (and multipart parsed) past this filter, so it could not be charged
+			reject(response, HttpStatus.LENGTH_REQUIRED,
+					budget.description() + " requests need a Content-Length while rate limiting is enabled");
+			return;
+		} else {
+			decision = limiter.tryAcquire(budget, principal.getName(), 0);
+		}
+
+		if (decision.limit() >= 0) {
+			response.setHeader("X-RateLimit-Limit", Long.toString(decision.limit()));
+			response.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+		}
+		if (decision.allowed()) {
+			chain.doFilter(request, response);
+			return;
+		}
+		if (decision.retryAfterSeconds() < 0) {
+			reject(response, HttpStatus.PAYLOAD_TOO_LARGE,
+					budget.description() + " request is larger than the whole per-user budget");
+			return;
+		}
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+		reject(response, HttpStatus.TOO_MANY_REQUESTS,
+				budget.description() + " quota used up; retry in " + decision.retryAfterSeconds() + " s");
+	}
+
+	private static Budget budget(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		String method = request.getMethod();
+		if ("POST".equals(method) && (path.equals("/document/query") || path.equals("/document/query/stream"))) {
+			return Budget.QUERIES;
+		}
+		if (("POST".equals(method) && (path.equals("/document/analyze") || path.equals("/document/import")))
+				|| ("PUT".equals(method) && path.startsWith("/document/uploads/"))) {
+			return Budget.UPLOAD_BYTES;
+		}
+		return null;
+	}
+
+	private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.getWriter().write("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase()
+				+ "\",\"message\":\"" + message + "\"}");
+	}
+}
@@ -0,0 +1,239 @@
+package com.odedia.analyzer.ratelimit;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-user token buckets ({@link TokenBucket}), one per user and {@link Budget}. Each budget is
+ * {@code app.ratelimit.<budget>.capacity} units refilled evenly over {@code .period}, so the
+ * capacity is both the burst size and the sustained rate per period.
+ * <p>
+ * With {@code app.ratelimit.store: jdbc} buckets are also shared through the
+ * {@code rate_limit_bucket} table: every {@code syncInterval} each instance adds what it
+ * consumed to the stored TAT and adopts the result, so instances converge on one budget per
+ * user, overshooting by at most what they admit within one interval. Buckets stay in memory
+ * and every decision is made locally, without a database round trip.
+ */
+@Component
+public class RateLimiter implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+	public enum Budget {
+		QUERIES("queries", "Query"),
+		UPLOAD_BYTES("uploadBytes", "Upload"),
+		EMBEDDED_TOKENS("embeddedTokens", "Embedding");
+
+		private final String property;
+		private final String description;
+
+		Budget(String property, String description) {
+			this.property = property;
+			this.description = description;
+		}
+
+		public String description() {
+			return description;
+		}
+	}
+
+	/**
+	 * @param retryAfterSeconds when {@code allowed} is false; -1 if the request can never fit the budget
+	 */
+	public record Decision(boolean allowed, long limit, long remaining, long retryAfterSeconds) {
+	}
+
+	private record Limit(long capacity, long periodMicros) {
+	}
+
+	private final boolean enabled;
+	private final Map<Budget, Limit> limits = new EnumMap<>(Budget.class);
+	private final Map<Budget, Map<String, TokenBucket>> buckets = new EnumMap<>(Budget.class);
+	private final JdbcTemplate jdbc;
+	private final MeterRegistry meterRegistry;
+	private final ScheduledExecutorService sync = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "rate-limit-sync");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public RateLimiter(Environment environment, JdbcTemplate jdbc, MeterRegistry meterRegistry,
+			@Value("${app.ratelimit.enabled:false}") boolean enabled,
+			@Value("${app.ratelimit.store:memory}") String store,
+			@Value("${app.ratelimit.syncInterval:1s}") Duration syncInterval) {
+		this.enabled = enabled;
+		this.jdbc = "jdbc".equalsIgnoreCase(store.trim()) ? jdbc : null;
+		this.meterRegistry = meterRegistry;
+		for (Budget budget : Budget.values()) {
+			String prefix = "app.ratelimit." + budget.property + ".";
+			long capacity = budget == Budget.UPLOAD_BYTES
+					? environment.getRequiredProperty(prefix + "capacity", DataSize.class).toBytes()
+					: environment.getRequiredProperty(prefix + "capacity", Long.class);
+			Duration period = environment.getRequiredProperty(prefix + "period", Duration.class);
+			limits.put(budget, new Limit(capacity, TimeUnit.NANOSECONDS.toMicros(period.toNanos())));
+			buckets.put(budget, new ConcurrentHashMap<>());
+		}
+		long intervalMillis = syncInterval.toMillis();
+		if (enabled) {
+			sync.scheduleWithFixedDelay(this::maintain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Takes {@code amount} units from the user's budget if they are available.
+	 */
+	public Decision tryAcquire(Budget budget, String user, long amount) {
+		if (!enabled) {
+			return new Decision(true, -1, -1, 0);
+		}
+		long now = now();
+		TokenBucket bucket = bucket(budget, user, now);
+		long wait;
+		while ((wait = bucket.tryAcquire(amount, now)) == TokenBucket.RETIRED) {
+			bucket = replace(budget, user, bucket, now);
+		}
+		if (wait == 0) {
+			return new Decision(true, bucket.capacity(), bucket.remaining(now), 0);
+		}
+		meterRegistry.counter("ratelimit.rejected", "budget", budget.property).increment();
+		return new Decision(false, bucket.capacity(), bucket.remaining(now),
+				wait == Long.MAX_VALUE ? -1 : seconds(wait));
+	}
+
+	/**
+	 * Throws if the user's budget is in debt, without taking anything.
+	 */
+	public void checkAvailable(Budget budget, String user) {
+		checkAvailable(budget, user, 0);
+	}
+
+	/**
+	 * Throws unless {@code amount} units are available now, without taking anything; for costs
+	 * that are {@link #charge charged} once the work has succeeded.
+	 */
+	public void checkAvailable(Budget budget, String user, long amount) {
+		if (!enabled) {
+			return;
+		}
+		long now = now();
+		long wait = bucket(budget, user, now).check(amount, now);
+		if (wait > 0) {
+			meterRegistry.counter("ratelimit.rejected", "budget", budget.property).increment();
+			throw new RateLimitExceededException(budget, wait == Long.MAX_VALUE ? -1 : seconds(wait));
+		}
+	}
+
+	/**
+	 * Records usage measured after the fact; may put the budget into debt.
+	 */
+	public void charge(Budget budget, String user, long amount) {
+		if (enabled && amount > 0) {
+			long now = now();
+			TokenBucket bucket = bucket(budget, user, now);
+			while (!bucket.charge(amount, now)) {
+				bucket = replace(budget, user, bucket, now);
+			}
+		}
+	}
+
+	private TokenBucket bucket(Budget budget, String user, long now) {
+		return buckets.get(budget).computeIfAbsent(user, u -> {
+			Limit limit = limits.get(budget);
+			return new TokenBucket(limit.capacity(), limit.periodMicros(), now);
+		});
+	}
+
+	/**
+	 * A bucket retired by {@link #maintain()} after it was looked up: drop it, if that has not
+	 * happened yet, and start a fresh one.
+	 */
+	private TokenBucket replace(Budget budget, String user, TokenBucket retired, long now) {
+		buckets.get(budget).remove(user, retired);
+		return bucket(budget, user, now);
+	}
+
+	/**
+	 * Shares consumption through Postgres when configured, and forgets buckets that are full again;
+	 * {@link TokenBucket#retire} makes sure none is dropped while a request is taking from it.
+	 */
+	private void maintain() {
+		long now = now();
+		try {
+			for (Map.Entry<Budget, Map<String, TokenBucket>> entry : buckets.entrySet()) {
+				for (Map.Entry<String, TokenBucket> user : entry.getValue().entrySet()) {
+					TokenBucket bucket = user.getValue();
+					if (jdbc != null) {
+						sync(entry.getKey().property + ":" + user.getKey(), bucket, now);
+					}
+					if (bucket.retire(now)) {
+						entry.getValue().remove(user.getKey(), bucket);
+					}
+				}
+			}
+			if (jdbc != null) {
+				jdbc.update("DELETE FROM rate_limit_bucket WHERE tat < ?", now);
+			}
+		} catch (RuntimeException e) {
+			logger.warn("Rate limit maintenance failed: {}", e.toString());
+		}
+	}
+
+	private void sync(String key, TokenBucket bucket, long now) {
+		long consumed = bucket.drainPending();
+		if (consumed == 0) {
+			// nothing to add; pick up what other instances consumed
+			jdbc.queryForList("SELECT tat FROM rate_limit_bucket WHERE key = ?", Long.class, key)
+					.forEach(bucket::merge);
+			return;
+		}
+		try {
+			Long shared = jdbc.queryForObject("""
+					INSERT INTO rate_limit_bucket (key, tat) VALUES (?, ?)
+					ON CONFLICT (key) DO UPDATE SET tat = GREATEST(rate_limit_bucket.tat, ?) + ?
+					RETURNING tat
+					""", Long.class, key, Math.max(bucket.tat(), now), now, consumed);
+			if (shared != null) {
+				bucket.merge(shared);
+			}
+		} catch (RuntimeException e) {
+			// keep it for the next attempt
+			bucket.restorePending(consumed);
+			throw e;
+		}
+	}
+
+	private static long now() {
+		Instant now = Instant.now();
+		return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+	}
+
+	private static long seconds(long micros) {
+		return Math.max(1, (micros + 999_999) / 1_000_000);
+	}
+
+	@Override
+	public void destroy() {
+		sync.shutdownNow();
+	}
+}
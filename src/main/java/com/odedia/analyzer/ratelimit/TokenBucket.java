@@ -0,0 +1,150 @@
+package com.odedia.analyzer.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm: the only state is the
+ * "theoretical arrival time" (TAT) in epoch microseconds at which the bucket is full again,
+ * updated with compare-and-set. Taking n tokens moves the TAT n intervals into the future;
+ * a request is refused when that would put it more than one full period ahead of now.
+ * <p>
+ * {@link #charge} takes tokens unconditionally, for costs only known afterwards (embedding
+ * tokens); the bucket then stays in debt, refusing requests until it has refilled past zero.
+ * {@link #check} checks whether tokens could be taken without taking them.
+ * <p>
+ * A full bucket can be {@link #retire retired} so its owner can drop it: that swaps the TAT
+ * for a marker in the same compare-and-set, so a request racing with the eviction either lands
+ * before it (and the bucket is kept) or sees {@link #RETIRED} and takes a fresh bucket.
+ */
+final class TokenBucket {
+
+	/** Returned by {@link #tryAcquire} on a retired bucket. */
+	static final long RETIRED = -1;
+
+	private static final long RETIRED_TAT = Long.MIN_VALUE;
+
+	private final long capacity;
+	private final double microsPerToken;
+	private final long periodMicros;
+	private final AtomicLong tat;
+	/** Microseconds of TAT this instance added since the last {@link #drainPending()}, for shared persistence. */
+	private final AtomicLong pending = new AtomicLong();
+
+	TokenBucket(long capacity, long periodMicros, long now) {
+		this.capacity = capacity;
+		this.periodMicros = periodMicros;
+		this.microsPerToken = (double) periodMicros / capacity;
+		this.tat = new AtomicLong(now);
+	}
+
+	/**
+	 * @return 0 if the tokens were taken, otherwise microseconds until they would be available,
+	 * {@link Long#MAX_VALUE} if {@code tokens} exceeds the capacity, or {@link #RETIRED}
+	 */
+	long tryAcquire(long tokens, long now) {
+		if (tokens > capacity) {
+			return Long.MAX_VALUE;
+		}
+		long cost = cost(tokens);
+		while (true) {
+			long current = tat.get();
+			if (current == RETIRED_TAT) {
+				return RETIRED;
+			}
+			long next = Math.max(current, now) + cost;
+			long wait = next - now - periodMicros;
+			if (wait > 0) {
+				return wait;
+			}
+			if (tat.compareAndSet(current, next)) {
+				pending.addAndGet(cost);
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * @return false if the bucket is retired and nothing was taken
+	 */
+	boolean charge(long tokens, long now) {
+		long cost = cost(tokens);
+		while (true) {
+			long current = tat.get();
+			if (current == RETIRED_TAT) {
+				return false;
+			}
+			if (tat.compareAndSet(current, Math.max(current, now) + cost)) {
+				pending.addAndGet(cost);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #tryAcquire} without taking anything; with 0 tokens, how long the bucket stays in debt.
+	 */
+	long check(long tokens, long now) {
+		if (tokens > capacity) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, Math.max(tat.get(), now) + cost(tokens) - now - periodMicros);
+	}
+
+	long remaining(long now) {
+		long used = Math.max(tat.get(), now) - now;
+		return Math.max(0, capacity - (long) Math.ceil(used / microsPerToken));
+	}
+
+	long capacity() {
+		return capacity;
+	}
+
+	long tat() {
+		return tat.get();
+	}
+
+	long drainPending() {
+		return pending.getAndSet(0);
+	}
+
+	/**
+	 * Puts back consumption that could not be written to shared storage.
+	 */
+	void restorePending(long micros) {
+		pending.addAndGet(micros);
+	}
+
+	/**
+	 * Adopts a TAT from shared storage when it is later than the local one.
+	 */
+	void merge(long sharedTat) {
+		tat.updateAndGet(current -> current == RETIRED_TAT ? current : Math.max(current, sharedTat));
+	}
+
+	/**
+	 * Marks the bucket retired if it is full and has no consumption left to share.
+	 *
+	 * @return whether the bucket is retired and may be dropped
+	 */
+	boolean retire(long now) {
+		if (pending.get() != 0) {
+			return false;
+		}
+		while (true) {
+			long current = tat.get();
+			if (current == RETIRED_TAT) {
+				return true;
+			}
+			if (current > now) {
+				return false;
+			}
+			if (tat.compareAndSet(current, RETIRED_TAT)) {
+				return true;
+			}
+		}
+	}
+
+	private long cost(long tokens) {
+		return (long) Math.ceil(tokens * microsPerToken);
+	}
+}
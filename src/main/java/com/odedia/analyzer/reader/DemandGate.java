@@ -0,0 +1,61 @@
+package com.odedia.analyzer.reader;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import org.springframework.ai.document.Document;
+
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Bridges a push-style {@link DocumentChunkReader} to a {@link FluxSink}: {@link #accept}
+ * blocks the reading thread until the subscriber has requested another chunk, and aborts
+ * the read with a {@link CancellationException} once the subscription is cancelled. An
+ * interrupt of the reading thread (executor shutdown) is not a cancellation: it aborts the
+ * read and is reported to the subscriber as an error.
+ */
+class DemandGate implements Consumer<Document> {
+
+	private final FluxSink<Document> sink;
+	private long requested;
+	private boolean cancelled;
+
+	DemandGate(FluxSink<Document> sink) {
+		this.sink = sink;
+		sink.onCancel(this::cancel);
+		sink.onRequest(this::request);
+	}
+
+	@Override
+	public void accept(Document doc) {
+		synchronized (this) {
+			try {
+				while (requested == 0 && !cancelled) {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Interrupted while waiting for demand");
+			}
+			if (cancelled) {
+				throw new CancellationException("Subscriber cancelled");
+			}
+			requested--;
+		}
+		sink.next(doc);
+	}
+
+	synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	private synchronized void request(long n) {
+		requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+		notifyAll();
+	}
+
+	private synchronized void cancel() {
+		cancelled = true;
+		notifyAll();
+	}
+}
@@ -0,0 +1,50 @@
+package com.odedia.analyzer.reader;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.ai.document.Document;
+import org.springframework.web.multipart.MultipartFile;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Turns one uploaded file into embedding-sized chunks. Implementations push chunks to the
+ * sink as soon as they are produced instead of building the whole document in memory.
+ * Register a new file type by adding a bean that lists its MIME types.
+ */
+public interface DocumentChunkReader {
+
+	/**
+	 * MIME types (as detected by Tika) this reader handles.
+	 */
+	Set<String> mimeTypes();
+
+	/**
+	 * @return the dominant language of the whole file, "he" or "en"
+	 */
+	String read(MultipartFile file, ReadOptions options, Consumer<Document> sink) throws IOException;
+
+	/**
+	 * {@link #read} as a backpressured stream: the reader runs on a bounded-elastic thread
+	 * and blocks whenever downstream has no outstanding demand, so the number of chunks in
+	 * memory is bounded by what the subscriber requests rather than by the file size.
+	 * Chunks carry "documentLanguage" only when the reader decides it before the first chunk
+	 * is emitted (PDF); otherwise the file's language is the majority of the chunk languages.
+	 */
+	default Flux<Document> stream(MultipartFile file, ReadOptions options) {
+		return Flux.<Document>create(sink -> {
+			DemandGate gate = new DemandGate(sink);
+			try {
+				read(file, options, gate);
+				sink.complete();
+			} catch (Exception e) {
+				if (!gate.isCancelled()) {
+					sink.error(e);
+				}
+			}
+		}).subscribeOn(Schedulers.boundedElastic());
+	}
+}
@@ -0,0 +1,61 @@
+package com.odedia.analyzer.reader;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.odedia.analyzer.diagnostics.PromptDiagnostics;
+import com.odedia.analyzer.rtl.HebrewEnglishPdfPerPageExtractor;
+import com.odedia.analyzer.rtl.ScriptStatistics;
+
+/**
+ * One chunk per non-blank PDF page, handed on as soon as the page is extracted
+ * (see the streaming {@link HebrewEnglishPdfPerPageExtractor#extractPages} variant).
+ */
+@Component
+public class PdfChunkReader implements DocumentChunkReader {
+
+	private final PromptDiagnostics diagnostics;
+
+	public PdfChunkReader(PromptDiagnostics diagnostics) {
+		this.diagnostics = diagnostics;
+	}
+
+	@Override
+	public Set<String> mimeTypes() {
+		return Set.of("application/pdf");
+	}
+
+	@Override
+	public String read(MultipartFile file, ReadOptions options, Consumer<Document> sink) throws IOException {
+		String filename = file.getOriginalFilename();
+		boolean capture = diagnostics.shouldCapture(false);
+		return HebrewEnglishPdfPerPageExtractor.extractPages(file, options.pdfMode(), options.bidiRepair(), page -> {
+			if (capture) {
+				diagnostics.capturePage(filename, page.number(), page.text());
+			}
+			if (page.text().isBlank()) {
+				return;
+			}
+			ScriptStatistics stats = page.statistics();
+			Document doc = new Document(page.text());
+			doc.getMetadata().put("filename", filename);
+			// mixed documents: each page carries its own language
+			doc.getMetadata().put("language", stats.dominantLanguageOr(page.documentLanguage()));
+			doc.getMetadata().put("documentLanguage", page.documentLanguage());
+			doc.getMetadata().put("page", page.number());
+			doc.getMetadata().putAll(stats.toMetadata());
+			if (!page.headers().isEmpty()) {
+				doc.getMetadata().put("headers", page.headers());
+			}
+			if (!page.footers().isEmpty()) {
+				doc.getMetadata().put("footers", page.footers());
+			}
+			sink.accept(doc);
+		});
+	}
+}
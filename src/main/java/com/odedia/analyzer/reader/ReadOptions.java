@@ -0,0 +1,9 @@
+package com.odedia.analyzer.reader;
+
+import com.odedia.analyzer.rtl.ExtractionMode;
+
+/**
+ * Per-file extraction settings; only PDFs currently look at them.
+ */
+public record ReadOptions(ExtractionMode pdfMode, boolean bidiRepair) {
+}
@@ -0,0 +1,53 @@
+package com.odedia.analyzer.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tika.Tika;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.mime.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Picks a {@link DocumentChunkReader} by the MIME type Tika detects from the file's
+ * content (and name as a hint), rather than by extension alone.
+ */
+@Component
+public class ReaderRegistry {
+
+	private final Tika tika = new Tika();
+	private final Map<String, DocumentChunkReader> readers = new HashMap<>();
+
+	public ReaderRegistry(List<DocumentChunkReader> readers) {
+		for (DocumentChunkReader reader : readers) {
+			for (String mimeType : reader.mimeTypes()) {
+				this.readers.put(mimeType, reader);
+			}
+		}
+	}
+
+	public String detect(MultipartFile file) throws IOException {
+		try (InputStream in = TikaInputStream.get(file.getInputStream())) {
+			return tika.detect(in, file.getOriginalFilename());
+		}
+	}
+
+	/**
+	 * @return the reader for the MIME type, falling back to its base type without
+	 * parameters (e.g. "text/plain; charset=UTF-8"), or null when unsupported
+	 */
+	public DocumentChunkReader readerFor(String mimeType) {
+		DocumentChunkReader reader = readers.get(mimeType);
+		if (reader == null) {
+			MediaType parsed = MediaType.parse(mimeType);
+			if (parsed != null) {
+				reader = readers.get(parsed.getBaseType().toString());
+			}
+		}
+		return reader;
+	}
+}
@@ -0,0 +1,141 @@
+package com.odedia.analyzer.reader;
+
+import java.util.function.Consumer;
+
+import org.springframework.ai.document.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.odedia.analyzer.rtl.ScriptStatistics;
+
+/**
+ * Builds chunks from Tika's XHTML SAX events. A heading starts a new chunk (and becomes
+ * its "section"); otherwise a chunk is emitted at the first paragraph, list item or table
+ * row boundary after it reaches {@code maxChars}. A single paragraph longer than twice
+ * that is cut at the last whitespace.
+ */
+class StructuredChunkHandler extends DefaultHandler {
+
+	private final String filename;
+	private final int maxChars;
+	private final Consumer<Document> sink;
+
+	private final StringBuilder chunk = new StringBuilder();
+	private final StringBuilder heading = new StringBuilder();
+	private final ScriptStatistics documentStatistics = new ScriptStatistics();
+	private String section;
+	private int bodyChars;
+	private int chunkIndex;
+	private int headDepth;
+	private boolean inHeading;
+
+	StructuredChunkHandler(String filename, int maxChars, Consumer<Document> sink) {
+		this.filename = filename;
+		this.maxChars = maxChars;
+		this.sink = sink;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes atts) {
+		String name = localName.isEmpty() ? qName : localName;
+		if ("head".equals(name)) {
+			headDepth++;
+		} else if (isHeading(name)) {
+			if (bodyChars > 0) {
+				flush();
+			}
+			inHeading = true;
+			heading.setLength(0);
+		} else if ("br".equals(name)) {
+			chunk.append('\n');
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) {
+		String name = localName.isEmpty() ? qName : localName;
+		switch (name) {
+			case "head" -> headDepth--;
+			case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+				inHeading = false;
+				section = heading.toString().strip();
+				chunk.append('\n');
+			}
+			case "td", "th" -> chunk.append('\t');
+			case "p", "li", "tr", "div", "blockquote", "pre" -> {
+				chunk.append('\n');
+				if (chunk.length() >= maxChars) {
+					flush();
+				}
+			}
+			default -> {
+			}
+		}
+	}
+
+	@Override
+	public void characters(char[] ch, int start, int length) {
+		if (headDepth > 0) {
+			return;
+		}
+		chunk.append(ch, start, length);
+		if (inHeading) {
+			heading.append(ch, start, length);
+		} else {
+			bodyChars += length;
+		}
+		if (chunk.length() >= maxChars * 2) {
+			splitOversizedParagraph();
+		}
+	}
+
+	@Override
+	public void endDocument() {
+		flush();
+	}
+
+	String documentLanguage() {
+		return documentStatistics.dominantLanguage();
+	}
+
+	private void splitOversizedParagraph() {
+		int cut = chunk.length();
+		for (int i = maxChars * 2 - 1; i > maxChars; i--) {
+			if (Character.isWhitespace(chunk.charAt(i))) {
+				cut = i;
+				break;
+			}
+		}
+		String rest = chunk.substring(cut);
+		chunk.setLength(cut);
+		flush();
+		chunk.append(rest);
+		bodyChars = rest.length();
+	}
+
+	private void flush() {
+		String text = chunk.toString().strip();
+		chunk.setLength(0);
+		bodyChars = 0;
+		if (text.isEmpty()) {
+			return;
+		}
+		ScriptStatistics stats = new ScriptStatistics().accept(text);
+		documentStatistics.add(stats);
+		// Chunks leave before the file is fully parsed, so there is no file-level language to
+		// attach yet; the running estimate only stands in for chunks too short to judge.
+		Document doc = new Document(text);
+		doc.getMetadata().put("filename", filename);
+		doc.getMetadata().put("language", stats.dominantLanguageOr(documentStatistics.dominantLanguage()));
+		doc.getMetadata().put("chunk", ++chunkIndex);
+		if (section != null && !section.isEmpty()) {
+			doc.getMetadata().put("section", section);
+		}
+		doc.getMetadata().putAll(stats.toMetadata());
+		sink.accept(doc);
+	}
+
+	private static boolean isHeading(String name) {
+		return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+	}
+}
@@ -0,0 +1,68 @@
+package com.odedia.analyzer.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.SAXException;
+
+/**
+ * Office, OpenDocument, RTF, HTML and plain text through Tika's SAX event stream.
+ * Chunks are cut at headings and paragraph boundaries while parsing
+ * ({@link StructuredChunkHandler}), so only the chunk being built is held in memory
+ * rather than the whole document text.
+ */
+@Component
+public class TikaStreamingReader implements DocumentChunkReader {
+
+	private final AutoDetectParser parser = new AutoDetectParser();
+	private final int maxChunkChars;
+
+	public TikaStreamingReader(@Value("${app.ingest.chunk.maxChars:4000}") int maxChunkChars) {
+		this.maxChunkChars = maxChunkChars;
+	}
+
+	@Override
+	public Set<String> mimeTypes() {
+		return Set.of(
+				"application/msword",
+				"application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+				"application/vnd.ms-powerpoint",
+				"application/vnd.openxmlformats-officedocument.presentationml.presentation",
+				"application/vnd.ms-excel",
+				"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+				"application/vnd.oasis.opendocument.text",
+				"application/vnd.oasis.opendocument.presentation",
+				"application/vnd.oasis.opendocument.spreadsheet",
+				"application/rtf",
+				"text/html",
+				"application/xhtml+xml",
+				"text/plain",
+				"text/markdown",
+				"text/x-web-markdown");
+	}
+
+	@Override
+	public String read(MultipartFile file, ReadOptions options, Consumer<Document> sink) throws IOException {
+		Metadata metadata = new Metadata();
+		metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, file.getOriginalFilename());
+		StructuredChunkHandler handler = new StructuredChunkHandler(file.getOriginalFilename(), maxChunkChars, sink);
+		try (InputStream in = TikaInputStream.get(file.getInputStream())) {
+			parser.parse(in, handler, metadata, new ParseContext());
+		} catch (SAXException | TikaException e) {
+			throw new IOException("Failed to parse " + file.getOriginalFilename(), e);
+		}
+		return handler.documentLanguage();
+	}
+}
@@ -0,0 +1,20 @@
+package com.odedia.analyzer.reader;
+
+import java.io.IOException;
+
+/**
+ * No registered {@link DocumentChunkReader} handles the file's detected MIME type.
+ */
+public class UnsupportedDocumentTypeException extends IOException {
+
+	private final String mimeType;
+
+	public UnsupportedDocumentTypeException(String mimeType, String filename) {
+		super("Unsupported file type " + mimeType + ": " + filename);
+		this.mimeType = mimeType;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+}
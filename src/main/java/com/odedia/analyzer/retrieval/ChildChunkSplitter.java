@@ -0,0 +1,69 @@
+package com.odedia.analyzer.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+
+/**
+ * Cuts a parent page or section into overlapping child chunks of about {@code childChars},
+ * ending each at the last whitespace in its second half so words are not split. Children
+ * copy the parent's metadata and add {@value #PARENT_ID} and {@value #CHILD}.
+ */
+public final class ChildChunkSplitter {
+
+	public static final String PARENT_ID = "parentId";
+	public static final String CHILD = "child";
+
+	private final int childChars;
+	private final int overlap;
+
+	public ChildChunkSplitter(int childChars, int overlap) {
+		if (childChars <= 0 || overlap < 0 || overlap >= childChars / 2) {
+			throw new IllegalArgumentException("Need childChars > 0 and 0 <= overlap < childChars / 2");
+		}
+		this.childChars = childChars;
+		this.overlap = overlap;
+	}
+
+	public List<Document> split(Document parent) {
+		String text = parent.getText();
+		List<Document> children = new ArrayList<>(text.length() / (childChars - overlap) + 1);
+		int length = text.length();
+		int start = 0;
+		while (start < length) {
+			int end = Math.min(start + childChars, length);
+			if (end < length) {
+				for (int i = end; i > start + childChars / 2; i--) {
+					if (Character.isWhitespace(text.charAt(i))) {
+						end = i;
+						break;
+					}
+				}
+			}
+			String child = text.substring(start, end).strip();
+			if (!child.isEmpty()) {
+				children.add(child(parent, child, children.size() + 1));
+			}
+			if (end == length) {
+				break;
+			}
+			// start the next child at a word boundary inside the overlap
+			int next = end - overlap;
+			while (next < end && !Character.isWhitespace(text.charAt(next))) {
+				next++;
+			}
+			start = next;
+		}
+		return children;
+	}
+
+	private static Document child(Document parent, String text, int index) {
+		Map<String, Object> metadata = new HashMap<>(parent.getMetadata());
+		metadata.put(PARENT_ID, parent.getId());
+		metadata.put(CHILD, index);
+		return new Document(text, metadata);
+	}
+}
@@ -0,0 +1,96 @@
+package com.odedia.analyzer.retrieval;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.odedia.analyzer.rtl.ScriptStatistics;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Optional query expansion ({@code app.ai.retrieval.multiQuery.enabled}): the model splits a
+ * question into up to {@code queries} focused search queries plus a Hebrew/English translation,
+ * and {@link MultiQueryVectorStore} searches them all concurrently and merges the results.
+ */
+@Component
+public class MultiQueryRetrieval {
+
+	private static final Pattern LIST_MARKER = Pattern.compile("^\\s*(?:[-*\\u2022]|\\d+[.)])\\s*");
+
+	private final boolean enabled;
+	private final int queries;
+	private final int contextChars;
+	private final Duration timeout;
+	private final ChatClient chatClient;
+	private final Map<VectorStore, VectorStore> searchStores = new ConcurrentHashMap<>();
+
+	public MultiQueryRetrieval(ChatClient.Builder chatClientBuilder,
+			@Value("${app.ai.retrieval.multiQuery.enabled:false}") boolean enabled,
+			@Value("${app.ai.retrieval.multiQuery.queries:3}") int queries,
+			@Value("${app.ai.retrieval.multiQuery.contextChars:24000}") int contextChars,
+			@Value("${app.ai.retrieval.multiQuery.timeout:10s}") Duration timeout) {
+		this.enabled = enabled;
+		this.queries = queries;
+		this.contextChars = contextChars;
+		this.timeout = timeout;
+		this.chatClient = chatClientBuilder.build();
+	}
+
+	/**
+	 * {@code vectorStore} itself when expansion is off, otherwise its (cached) multi-query wrapper.
+	 */
+	public VectorStore searchStore(VectorStore vectorStore) {
+		if (!enabled) {
+			return vectorStore;
+		}
+		return searchStores.computeIfAbsent(vectorStore,
+				store -> new MultiQueryVectorStore(store, this::expand, contextChars, timeout));
+	}
+
+	/**
+	 * Streams the model's answer, so that cancelling the returned Mono (the expansion timeout)
+	 * also cancels the model call instead of leaving it running in the background.
+	 */
+	Mono<List<String>> expand(String question) {
+		String translation = "he".equals(ScriptStatistics.detectDominantLanguage(question)) ? "English" : "Hebrew";
+		return chatClient.prompt()
+				.system("You write search queries for a document archive. Split the user's question into at most "
+						+ queries + " short search queries, one per distinct topic it asks about, then add the whole "
+						+ "question translated into " + translation + ". One query per line, no numbering, no other text.")
+				.user(question)
+				.stream()
+				.content()
+				.collect(Collectors.joining())
+				.map(answer -> parse(question, answer));
+	}
+
+	private List<String> parse(String question, String answer) {
+		Set<String> unique = new LinkedHashSet<>();
+		for (String line : answer.split("\\R")) {
+			String query = LIST_MARKER.matcher(line).replaceFirst("").strip();
+			if (!query.isEmpty() && !query.equalsIgnoreCase(question.strip())) {
+				unique.add(query);
+			}
+		}
+		// the translation comes last; keep it even when the model wrote too many sub-queries
+		List<String> expanded = new ArrayList<>(unique);
+		if (expanded.size() > queries + 1) {
+			List<String> capped = new ArrayList<>(expanded.subList(0, queries));
+			capped.add(expanded.get(expanded.size() - 1));
+			return capped;
+		}
+		return expanded;
+	}
+}
@@ -0,0 +1,125 @@
+package com.odedia.analyzer.retrieval;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Answers a search with the merged results of the original query and a few generated
+ * sub-queries. The original search starts while the sub-queries are still being generated,
+ * and the sub-query searches run concurrently, so the added latency is the generation plus
+ * one search round trip. Results are merged by reciprocal rank fusion, de-duplicated by id,
+ * and taken in fused order until {@code contextChars} of text or the request's topK is reached.
+ * If generation fails or times out, the original results are returned alone.
+ */
+public class MultiQueryVectorStore implements VectorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(MultiQueryVectorStore.class);
+
+	/** The usual reciprocal rank fusion constant; damps the weight of the very top ranks. */
+	private static final int RRF_K = 60;
+
+	private final VectorStore delegate;
+	private final Function<String, Mono<List<String>>> expander;
+	private final int contextChars;
+	private final Duration expansionTimeout;
+
+	/**
+	 * @param expander generates the additional queries for a question; cancelled on timeout
+	 */
+	public MultiQueryVectorStore(VectorStore delegate, Function<String, Mono<List<String>>> expander, int contextChars,
+			Duration expansionTimeout) {
+		this.delegate = delegate;
+		this.expander = expander;
+		this.contextChars = contextChars;
+		this.expansionTimeout = expansionTimeout;
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		delegate.add(documents);
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+		delegate.delete(idList);
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+		delegate.delete(filterExpression);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		Mono<List<List<Document>>> expanded = Mono.defer(() -> expander.apply(request.getQuery()))
+				.timeout(expansionTimeout)
+				.onErrorResume(e -> {
+					logger.warn("Query expansion failed, searching with the original query only: {}", e.toString());
+					return Mono.just(List.of());
+				})
+				.flatMapMany(queries -> Flux.fromIterable(queries)
+						.flatMapSequential(query -> search(request, query), Math.max(1, queries.size())))
+				.collectList();
+
+		// the original search runs while the sub-queries are generated
+		return Mono.zip(search(request, request.getQuery()), expanded, (original, more) -> {
+			List<List<Document>> rankings = new ArrayList<>(more.size() + 1);
+			rankings.add(original);
+			rankings.addAll(more);
+			return fuse(rankings, request.getTopK());
+		}).block();
+	}
+
+	private Mono<List<Document>> search(SearchRequest request, String query) {
+		return Mono.fromCallable(() -> delegate.similaritySearch(SearchRequest.from(request).query(query).build()))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	private List<Document> fuse(List<List<Document>> rankings, int topK) {
+		Map<String, Double> fused = new HashMap<>();
+		Map<String, Document> byId = new LinkedHashMap<>();
+		for (List<Document> ranking : rankings) {
+			for (int rank = 0; rank < ranking.size(); rank++) {
+				Document doc = ranking.get(rank);
+				fused.merge(doc.getId(), 1.0 / (RRF_K + rank + 1), Double::sum);
+				byId.putIfAbsent(doc.getId(), doc);
+			}
+		}
+
+		List<Document> ordered = new ArrayList<>(byId.values());
+		ordered.sort((a, b) -> Double.compare(fused.get(b.getId()), fused.get(a.getId())));
+
+		List<Document> results = new ArrayList<>(Math.min(topK, ordered.size()));
+		int chars = 0;
+		for (Document doc : ordered) {
+			int length = doc.getText() == null ? 0 : doc.getText().length();
+			if (results.size() == topK || (!results.isEmpty() && chars + length > contextChars)) {
+				break;
+			}
+			results.add(doc);
+			chars += length;
+		}
+		return results;
+	}
+}
@@ -0,0 +1,93 @@
+package com.odedia.analyzer.retrieval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code app.ai.retrieval.mode}: with {@code chunk} the pages / sections the readers
+ * produce are embedded and put into the prompt as they are. With {@code parent} they are
+ * stored once as parents, only their small child chunks are embedded, and searches return
+ * the de-duplicated parents of the best-matching children (see {@link ParentDocumentVectorStore}).
+ */
+@Component
+public class ParentChildRetrieval {
+
+	public enum Mode {
+		CHUNK, PARENT;
+
+		public static Mode from(String value) {
+			return valueOf(value.trim().toUpperCase());
+		}
+	}
+
+	private final Mode mode;
+	private final ParentDocumentStore parents;
+	private final ChildChunkSplitter splitter;
+	private final int maxParents;
+	private final Map<VectorStore, VectorStore> searchStores = new ConcurrentHashMap<>();
+
+	public ParentChildRetrieval(ParentDocumentStore parents,
+			@Value("${app.ai.retrieval.mode:chunk}") String mode,
+			@Value("${app.ai.retrieval.childChars:800}") int childChars,
+			@Value("${app.ai.retrieval.childOverlap:100}") int childOverlap,
+			@Value("${app.ai.retrieval.maxParents:6}") int maxParents) {
+		this.mode = Mode.from(mode);
+		this.parents = parents;
+		this.splitter = new ChildChunkSplitter(childChars, childOverlap);
+		this.maxParents = maxParents;
+	}
+
+	/**
+	 * Stores one batch of reader output for {@code table}.
+	 *
+	 * @return the number of embedded chunks
+	 */
+	public int store(VectorStore vectorStore, String table, String uploadId, List<Document> batch) {
+		if (mode == Mode.CHUNK) {
+			vectorStore.add(batch);
+			return batch.size();
+		}
+		List<Document> children = new ArrayList<>(batch.size() * 4);
+		for (Document parent : batch) {
+			children.addAll(splitter.split(parent));
+		}
+		parents.save(table, uploadId, batch);
+		vectorStore.add(children);
+		return children.size();
+	}
+
+	/**
+	 * The store queries should search: {@code vectorStore} itself, or in parent mode a
+	 * wrapper returning parents. Wrappers are cached alongside the collection stores.
+	 */
+	public VectorStore searchStore(VectorStore vectorStore) {
+		if (mode == Mode.CHUNK) {
+			return vectorStore;
+		}
+		return searchStores.computeIfAbsent(vectorStore,
+				store -> new ParentDocumentVectorStore(store, parents, maxParents));
+	}
+
+	/**
+	 * Removes the parents of a failed upload; its chunks are deleted from the vector store by the caller.
+	 */
+	public void deleteUpload(String uploadId) {
+		if (mode == Mode.PARENT) {
+			parents.deleteUpload(uploadId);
+		}
+	}
+
+	/**
+	 * Runs in either mode: the collection may hold parents from when parent mode was on.
+	 */
+	public void deleteCollection(String table) {
+		parents.deleteCollection(table);
+	}
+}
@@ -0,0 +1,102 @@
+package com.odedia.analyzer.retrieval;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parent pages / sections for parent-document retrieval, in {@code document_parent}
+ * (see schema.sql). Only the child chunks are embedded; a parent is stored once and
+ * looked up by the {@code parentId} its children carry. Writes use the ingestion pool,
+ * lookups the interactive pool.
+ */
+@Repository
+public class ParentDocumentStore {
+
+	private static final TypeReference<Map<String, Object>> METADATA = new TypeReference<>() {
+	};
+
+	private final JdbcTemplate jdbc;
+	private final JdbcTemplate ingestionJdbc;
+	private final ObjectMapper objectMapper;
+
+	public ParentDocumentStore(JdbcTemplate jdbc, @Qualifier("ingestionJdbcTemplate") JdbcTemplate ingestionJdbc,
+			ObjectMapper objectMapper) {
+		this.jdbc = jdbc;
+		this.ingestionJdbc = ingestionJdbc;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * @param table the schema-qualified vector table the children go to, so clearing it can clear its parents
+	 */
+	public void save(String table, String uploadId, List<Document> parents) {
+		ingestionJdbc.batchUpdate("""
+				INSERT INTO document_parent (id, collection_table, upload_id, content, metadata)
+				VALUES (?, ?, ?, ?, ?::jsonb)
+				""", parents, parents.size(), (ps, parent) -> {
+			ps.setObject(1, UUID.fromString(parent.getId()));
+			ps.setString(2, table);
+			ps.setString(3, uploadId);
+			ps.setString(4, parent.getText());
+			ps.setString(5, toJson(parent.getMetadata()));
+		});
+	}
+
+	/**
+	 * Fetches all the given parents in one query; ids that no longer exist are absent from the result.
+	 */
+	public Map<String, Document> findByIds(Collection<String> ids) {
+		Map<String, Document> parents = new HashMap<>();
+		if (ids.isEmpty()) {
+			return parents;
+		}
+		jdbc.query("SELECT id, content, metadata FROM document_parent WHERE id = ANY(?)",
+				ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())),
+				rs -> {
+					String id = rs.getString("id");
+					parents.put(id, Document.builder()
+							.id(id)
+							.text(rs.getString("content"))
+							.metadata(fromJson(rs.getString("metadata")))
+							.build());
+				});
+		return parents;
+	}
+
+	public void deleteUpload(String uploadId) {
+		ingestionJdbc.update("DELETE FROM document_parent WHERE upload_id = ?", uploadId);
+	}
+
+	public void deleteCollection(String table) {
+		ingestionJdbc.update("DELETE FROM document_parent WHERE collection_table = ?", table);
+	}
+
+	private String toJson(Map<String, Object> metadata) {
+		try {
+			return objectMapper.writeValueAsString(metadata);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Map<String, Object> fromJson(String json) {
+		try {
+			return objectMapper.readValue(json, METADATA);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
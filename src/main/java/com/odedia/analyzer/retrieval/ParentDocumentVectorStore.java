@@ -0,0 +1,91 @@
+package com.odedia.analyzer.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * Searches child chunks and answers with their parents: the children's parent ids are
+ * de-duplicated in rank order, capped at {@code maxParents}, and fetched in one query.
+ * Each parent keeps the score of its best child. Chunks stored without a parent (before
+ * parent mode was enabled) are returned as they are.
+ */
+public class ParentDocumentVectorStore implements VectorStore {
+
+	private final VectorStore children;
+	private final ParentDocumentStore parents;
+	private final int maxParents;
+
+	public ParentDocumentVectorStore(VectorStore children, ParentDocumentStore parents, int maxParents) {
+		this.children = children;
+		this.parents = parents;
+		this.maxParents = maxParents;
+	}
+
+	@Override
+	public String getName() {
+		return children.getName();
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+		children.add(documents);
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+		children.delete(idList);
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+		children.delete(filterExpression);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+		// best-ranked child per parent, in rank order; chunks without a parent are keyed by their own id
+		Map<String, Document> hits = new LinkedHashMap<>();
+		for (Document child : children.similaritySearch(request)) {
+			Object parentId = child.getMetadata().get(ChildChunkSplitter.PARENT_ID);
+			hits.putIfAbsent(parentId == null ? child.getId() : parentId.toString(), child);
+			if (hits.size() == maxParents) {
+				break;
+			}
+		}
+
+		List<String> parentIds = new ArrayList<>(hits.size());
+		hits.forEach((key, child) -> {
+			if (child.getMetadata().containsKey(ChildChunkSplitter.PARENT_ID)) {
+				parentIds.add(key);
+			}
+		});
+		Map<String, Document> found = parents.findByIds(parentIds);
+
+		List<Document> results = new ArrayList<>(hits.size());
+		hits.forEach((key, child) -> {
+			Document parent = found.get(key);
+			if (parent == null) {
+				// legacy chunk, or a parent deleted since the search
+				results.add(child);
+				return;
+			}
+			Map<String, Object> metadata = new HashMap<>(parent.getMetadata());
+			metadata.put("matchedChunk", child.getMetadata().get(ChildChunkSplitter.CHILD));
+			results.add(Document.builder()
+					.id(parent.getId())
+					.text(parent.getText())
+					.metadata(metadata)
+					.score(child.getScore())
+					.build());
+		});
+		return results;
+	}
+}
@@ -0,0 +1,106 @@
+package com.odedia.analyzer.rtl;
+
+import com.ibm.icu.lang.UCharacter;
+import com.ibm.icu.text.Bidi;
+import com.ibm.icu.text.BidiRun;
+
+/**
+ * Converts visual-order text (as some PDFs store Hebrew) into logical order, line by line,
+ * using ICU's inverse bidi algorithm. Lines without right-to-left characters are copied
+ * through untouched, the ICU {@link Bidi} instance is reused per thread, and mirroring
+ * uses a lookup table built from the full Unicode Bidi_Mirroring_Glyph property for the BMP,
+ * falling back to ICU for supplementary code points.
+ */
+public final class BidiNormalizer {
+
+	private static final char[] MIRRORS = new char[Character.MAX_VALUE + 1];
+
+	static {
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			MIRRORS[c] = (char) UCharacter.getMirror(c);
+		}
+	}
+
+	private static final ThreadLocal<Bidi> BIDI = ThreadLocal.withInitial(() -> {
+		Bidi bidi = new Bidi();
+		bidi.setReorderingMode(Bidi.REORDER_INVERSE_LIKE_DIRECT);
+		return bidi;
+	});
+
+	private BidiNormalizer() {
+	}
+
+	/**
+	 * Normalizes every line of a page. Line breaks are preserved; {@code \r\n} becomes {@code \n}.
+	 */
+	public static String normalizeLines(CharSequence page) {
+		StringBuilder out = new StringBuilder(page.length());
+		int length = page.length();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			if (page.charAt(i) == '\n') {
+				int end = (i > start && page.charAt(i - 1) == '\r') ? i - 1 : i;
+				appendLogical(page, start, end, out);
+				out.append('\n');
+				start = i + 1;
+			}
+		}
+		appendLogical(page, start, length, out);
+		return out.toString();
+	}
+
+	public static String toLogical(CharSequence visual) {
+		StringBuilder out = new StringBuilder(visual.length());
+		appendLogical(visual, 0, visual.length(), out);
+		return out.toString();
+	}
+
+	/**
+	 * Appends the logical-order form of {@code text[from, to)}, a single line, to {@code out}.
+	 */
+	public static void appendLogical(CharSequence text, int from, int to, StringBuilder out) {
+		int rtl = 0;
+		int ltr = 0;
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if (isRtl(c)) {
+				rtl++;
+			} else if (c < 0x80 ? ((c | 0x20) >= 'a' && (c | 0x20) <= 'z') : Character.isLetter(c)) {
+				ltr++;
+			}
+		}
+		if (rtl == 0) {
+			out.append(text, from, to);
+			return;
+		}
+
+		String line = text.subSequence(from, to).toString();
+		Bidi bidi = BIDI.get();
+		bidi.setPara(line, rtl >= ltr ? Bidi.RTL : Bidi.LTR, null);
+		int runs = bidi.countRuns();
+		for (int r = 0; r < runs; r++) {
+			BidiRun run = bidi.getVisualRun(r);
+			int start = run.getStart();
+			int limit = run.getLimit();
+			if (run.isOddRun()) {
+				// reverse by code point so surrogate pairs stay in order
+				for (int p = limit; p > start;) {
+					int cp = line.codePointBefore(p);
+					p -= Character.charCount(cp);
+					if (cp <= Character.MAX_VALUE) {
+						out.append(MIRRORS[cp]);
+					} else {
+						out.appendCodePoint(UCharacter.getMirror(cp));
+					}
+				}
+			} else {
+				out.append(line, start, limit);
+			}
+		}
+	}
+
+	private static boolean isRtl(char c) {
+		// Hebrew, Arabic, Syriac, Thaana, NKo, Samaritan, Mandaic and their presentation forms
+		return c >= '\u0590' && (c <= '\u08FF' || (c >= '\uFB1D' && c <= '\uFDFF') || (c >= '\uFE70' && c <= '\uFEFF'));
+	}
+}
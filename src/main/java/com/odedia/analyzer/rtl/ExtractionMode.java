@@ -0,0 +1,21 @@
+package com.odedia.analyzer.rtl;
+
+/**
+ * How text is pulled out of a PDF.
+ */
+public enum ExtractionMode {
+
+	/** PDFBox's own text stripper; right for most PDFs, including logical-order Hebrew. */
+	TEXT,
+
+	/**
+	 * Rebuilds lines from glyph positions and reorders right-to-left lines from visual
+	 * to logical order. For "hard" RTL PDFs whose text otherwise comes out reversed;
+	 * replaces the former Python/pdfminer sidecar.
+	 */
+	VISUAL_RTL;
+
+	public static ExtractionMode from(String value) {
+		return value == null || value.isBlank() ? TEXT : valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
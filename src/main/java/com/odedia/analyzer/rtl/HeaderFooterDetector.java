@@ -0,0 +1,167 @@
+package com.odedia.analyzer.rtl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds running headers and footers: lines near the top or bottom edge whose text
+ * (ignoring digits, so page numbers match) repeats at the same height on a large share
+ * of the document's pages.
+ */
+public class HeaderFooterDetector {
+
+	/** How many lines from each edge of a page are header/footer candidates. */
+	static final int EDGE_LINES = 3;
+
+	/** Candidates must sit within this fraction of the page height from the edge. */
+	private static final float EDGE_ZONE = 0.15f;
+
+	/** Share of pages a line must repeat on; alternating odd/even headers sit just under half. */
+	private static final double MIN_PAGE_SHARE = 0.4;
+
+	private static final int MIN_PAGES = 3;
+
+	/** Vertical drift, in points, still considered "the same position". */
+	private static final float POSITION_TOLERANCE = 6f;
+
+	public static Boilerplate detect(List<PageLayout> pages) {
+		if (pages.size() < MIN_PAGES) {
+			return Boilerplate.none(pages.size());
+		}
+		Map<String, List<Occurrence>> candidates = new LinkedHashMap<>();
+		for (int p = 0; p < pages.size(); p++) {
+			PageLayout page = pages.get(p);
+			List<TextLine> lines = page.lines();
+			for (int i = 0; i < Math.min(EDGE_LINES, lines.size()); i++) {
+				TextLine line = lines.get(i);
+				if (line.getTop() <= page.height() * EDGE_ZONE) {
+					candidates.computeIfAbsent("H" + normalize(line.getVisualText()), k -> new ArrayList<>())
+							.add(new Occurrence(p, line, true));
+				}
+			}
+			for (int i = Math.max(lines.size() - EDGE_LINES, 0); i < lines.size(); i++) {
+				TextLine line = lines.get(i);
+				if (line.getBottom() >= page.height() * (1 - EDGE_ZONE)) {
+					candidates.computeIfAbsent("F" + normalize(line.getVisualText()), k -> new ArrayList<>())
+							.add(new Occurrence(p, line, false));
+				}
+			}
+		}
+
+		int minPages = Math.max(MIN_PAGES - 1, (int) Math.ceil(pages.size() * MIN_PAGE_SHARE));
+		Boilerplate result = Boilerplate.none(pages.size());
+		for (List<Occurrence> occurrences : candidates.values()) {
+			if (occurrences.size() < minPages) {
+				continue;
+			}
+			float median = medianTop(occurrences);
+			List<Occurrence> aligned = occurrences.stream()
+					.filter(o -> Math.abs(o.line().getTop() - median) <= POSITION_TOLERANCE)
+					.toList();
+			if (aligned.stream().map(Occurrence::page).distinct().count() < minPages) {
+				continue;
+			}
+			for (Occurrence o : aligned) {
+				result.add(o.page(), o.line(), o.header());
+			}
+			Occurrence first = aligned.get(0);
+			if (first.header()) {
+				result.headers.add(first.line().getLogicalText());
+			} else {
+				result.footers.add(first.line().getLogicalText());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Lower-cased, whitespace-free, with digits folded to '#', so "Page 3 of 10" and
+	 * "Page 4 of 10" compare equal.
+	 */
+	static String normalize(String text) {
+		StringBuilder key = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isWhitespace(c)) {
+				continue;
+			}
+			key.append(Character.isDigit(c) ? '#' : Character.toLowerCase(c));
+		}
+		return key.toString();
+	}
+
+	private static float medianTop(List<Occurrence> occurrences) {
+		float[] tops = new float[occurrences.size()];
+		for (int i = 0; i < tops.length; i++) {
+			tops[i] = occurrences.get(i).line().getTop();
+		}
+		Arrays.sort(tops);
+		return tops[tops.length / 2];
+	}
+
+	private record Occurrence(int page, TextLine line, boolean header) {
+	}
+
+	/**
+	 * Detected header/footer lines per page, plus their text for document metadata.
+	 */
+	public static class Boilerplate {
+
+		private final Map<Integer, List<TextLine>> linesByPage = new HashMap<>();
+		private final float[] headerBottom;
+		private final float[] footerTop;
+		private final List<String> headers = new ArrayList<>();
+		private final List<String> footers = new ArrayList<>();
+
+		private Boilerplate(int pages) {
+			headerBottom = new float[pages];
+			footerTop = new float[pages];
+			Arrays.fill(headerBottom, -1f);
+			Arrays.fill(footerTop, Float.MAX_VALUE);
+		}
+
+		static Boilerplate none(int pages) {
+			return new Boilerplate(pages);
+		}
+
+		private void add(int page, TextLine line, boolean header) {
+			linesByPage.computeIfAbsent(page, k -> new ArrayList<>()).add(line);
+			if (header) {
+				headerBottom[page] = Math.max(headerBottom[page], line.getBottom());
+			} else {
+				footerTop[page] = Math.min(footerTop[page], line.getTop());
+			}
+		}
+
+		public boolean isBoilerplate(int page, TextLine line) {
+			List<TextLine> lines = linesByPage.get(page);
+			return lines != null && lines.contains(line);
+		}
+
+		public boolean hasBoilerplate(int page) {
+			return linesByPage.containsKey(page);
+		}
+
+		/** Baseline at or above which glyphs belong to the header, or -1 if the page has none. */
+		public float headerBottom(int page) {
+			return headerBottom[page];
+		}
+
+		/** Top at or below which glyphs belong to the footer, or {@link Float#MAX_VALUE} if none. */
+		public float footerTop(int page) {
+			return footerTop[page];
+		}
+
+		public List<String> getHeaders() {
+			return headers;
+		}
+
+		public List<String> getFooters() {
+			return footers;
+		}
+	}
+}
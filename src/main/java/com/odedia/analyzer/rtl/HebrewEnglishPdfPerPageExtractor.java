@@ -1,9 +1,10 @@
 package com.odedia.analyzer.rtl;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -14,69 +15,129 @@ import org.springframework.web.multipart.MultipartFile;
 
 import com.odedia.analyzer.dto.PDFData;
 import com.odedia.analyzer.file.FileMultipartFile;
+import com.odedia.analyzer.rtl.HeaderFooterDetector.Boilerplate;
 
 public class HebrewEnglishPdfPerPageExtractor {
 
 	private static final Logger logger = LoggerFactory.getLogger(HebrewEnglishPdfPerPageExtractor.class);
 
 	public static PDFData extractPages(MultipartFile pdfFile) throws IOException {
+		return extractPages(pdfFile, ExtractionMode.TEXT, false);
+	}
+
+	/**
+	 * Collects the {@link #extractPages(MultipartFile, ExtractionMode, boolean, Consumer) streaming}
+	 * extraction into one {@link PDFData}; for tools that want the whole document at once.
+	 *
+	 * @param mode {@link ExtractionMode#VISUAL_RTL} rebuilds lines from glyph positions for
+	 * PDFs whose Hebrew comes out reversed with the regular text stripper
+	 * @param bidiRepair in {@link ExtractionMode#TEXT} mode, reorder Hebrew pages from visual
+	 * to logical order line by line after extraction
+	 */
+	public static PDFData extractPages(MultipartFile pdfFile, ExtractionMode mode, boolean bidiRepair) throws IOException {
+		List<String> pages = new ArrayList<>();
+		List<ScriptStatistics> pageStatistics = new ArrayList<>();
+		ScriptStatistics documentStatistics = new ScriptStatistics();
+		List<PdfPage> last = new ArrayList<>(1);
+		String language = extractPages(pdfFile, mode, bidiRepair, page -> {
+			pages.add(page.text());
+			pageStatistics.add(page.statistics());
+			documentStatistics.add(page.statistics());
+			last.clear();
+			last.add(page);
+		});
+		List<String> headers = last.isEmpty() ? List.of() : last.get(0).headers();
+		List<String> footers = last.isEmpty() ? List.of() : last.get(0).footers();
+		return new PDFData(pages, language, pageStatistics, documentStatistics, headers, footers);
+	}
+
+    /**
+     * Each cleaned page goes to {@code consumer} as soon as it is extracted, and between pages only the header/footer candidate lines of each page
+     * are retained, so heap use does not grow with the page count. The price is a second
+     * parse of every page (the first pass only samples the language and collects edge lines).
+     *
+     * @return the document language, as also reported in every {@link PdfPage}
+     */
+    public static String extractPages(MultipartFile pdfFile, ExtractionMode mode, boolean bidiRepair,
+    		Consumer<PdfPage> consumer) throws IOException {
     	File file = File.createTempFile("prefix-", ".tmp");
     	pdfFile.transferTo(file);
 
         try (PDDocument document = Loader.loadPDF(file)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String raw = stripper.getText(document);
-            boolean isHebrew = "he".equals(detectDominantLanguage(raw));
-            if (isHebrew) {
-            	stripper.setSortByPosition(true);
-            }
-
-            List<String> pages = new ArrayList<>();
             int total = document.getNumberOfPages();
+            PageLayoutStripper stripper = new PageLayoutStripper();
 
+            List<PageLayout> edges = new ArrayList<>(total);
+            ScriptStatistics detection = new ScriptStatistics();
             for (int p = 1; p <= total; p++) {
                 stripper.setStartPage(p);
                 stripper.setEndPage(p);
-
-                // get the raw text of page p
-                raw = stripper.getText(document);
-                String[] lines = raw.split("\\r?\\n");
-
-                // drop first and last line (assumed header/footer)
-                int from = Math.min(1, lines.length);
-                int to   = Math.max(lines.length - 2, from);
-                List<String> bodyLines = Arrays.asList(lines).subList(from, to);
-
-                // re-join, skipping any blank lines
-                StringBuilder clean = new StringBuilder();
-                for (String line : bodyLines) {
-                    if (!line.trim().isEmpty()) {
-                        clean.append(line).append("\n");
+                if (mode == ExtractionMode.TEXT && !detection.isSettled()) {
+                    detection.accept(stripper.getText(document));
+                } else {
+                    stripper.writeText(document, Writer.nullWriter());
+                }
+                PageLayout layout = stripper.getLayout();
+                if (mode == ExtractionMode.VISUAL_RTL && !detection.isSettled()) {
+                    for (TextLine line : layout.lines()) {
+                        detection.accept(line.getVisualText());
                     }
                 }
-                pages.add(clean.toString().trim());
+                edges.add(layout.edges(HeaderFooterDetector.EDGE_LINES));
             }
-            int x=0;
-            for (String page : pages) {
-            	x++;
-            	logger.info("page {}: \n\n {} \n\n", x, page);
+            Boilerplate boilerplate = HeaderFooterDetector.detect(edges);
+
+            String language = detection.dominantLanguage();
+            boolean isHebrew = "he".equals(language);
+            stripper.setSortByPosition(mode == ExtractionMode.TEXT && isHebrew);
+            for (int p = 1; p <= total; p++) {
+                stripper.setExcludedBands(boilerplate.headerBottom(p - 1), boilerplate.footerTop(p - 1));
+                String page;
+                if (mode == ExtractionMode.VISUAL_RTL) {
+                    stripper.setStartPage(p);
+                    stripper.setEndPage(p);
+                    stripper.writeText(document, Writer.nullWriter());
+                    page = TextLine.toParagraphs(stripper.getLayout().lines()).trim();
+                } else {
+                    page = clean(pageText(stripper, document, p), isHebrew, bidiRepair);
+                }
+                consumer.accept(new PdfPage(p, page, new ScriptStatistics().accept(page), language,
+                		boilerplate.getHeaders(), boilerplate.getFooters()));
             }
-            
-            return new PDFData(pages, (isHebrew ? "he" : "en"));
+            logger.debug("Streamed {} pages from {} ({}, {}), {} header(s) and {} footer(s) removed",
+            		total, pdfFile.getOriginalFilename(), language, mode,
+            		boilerplate.getHeaders().size(), boilerplate.getFooters().size());
+            return language;
+        } finally {
+        	file.delete();
         }
     }
 
-    public static String detectDominantLanguage(String text) {
-        int hebrewChars = 0;
-        int englishChars = 0;
-
-        for (char c : text.toCharArray()) {
-            if (c >= '\u0590' && c <= '\u05FF') hebrewChars++;
-            else if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) englishChars++;
+    /**
+     * Re-joins the page's lines, skipping blank ones, and optionally repairs visual-order Hebrew.
+     */
+    private static String clean(String raw, boolean isHebrew, boolean bidiRepair) {
+        StringBuilder clean = new StringBuilder(raw.length());
+        for (String line : raw.split("\\r?\\n")) {
+            if (!line.isBlank()) {
+                clean.append(line).append("\n");
+            }
         }
+        String page = clean.toString().trim();
+        if (isHebrew && bidiRepair) {
+        	page = BidiNormalizer.normalizeLines(page);
+        }
+        return page;
+    }
+
+    private static String pageText(PDFTextStripper stripper, PDDocument document, int page) throws IOException {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(document);
+    }
 
-        if (hebrewChars >= englishChars) return "he";
-        return "en";
+    public static String detectDominantLanguage(CharSequence text) {
+        return ScriptStatistics.detectDominantLanguage(text);
     }
 
 	
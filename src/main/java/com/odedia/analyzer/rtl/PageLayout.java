@@ -0,0 +1,24 @@
+package com.odedia.analyzer.rtl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The lines of one page, top to bottom, and the page height in points.
+ */
+public record PageLayout(List<TextLine> lines, float height) {
+
+	/**
+	 * Only the first and last {@code count} lines, which is all header/footer detection
+	 * looks at; lets a caller keep every page's layout without keeping every line.
+	 */
+	public PageLayout edges(int count) {
+		if (lines.size() <= count * 2) {
+			return this;
+		}
+		List<TextLine> edges = new ArrayList<>(count * 2);
+		edges.addAll(lines.subList(0, count));
+		edges.addAll(lines.subList(lines.size() - count, lines.size()));
+		return new PageLayout(edges, height);
+	}
+}
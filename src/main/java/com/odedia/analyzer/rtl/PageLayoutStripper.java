@@ -0,0 +1,61 @@
+package com.odedia.analyzer.rtl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+/**
+ * A {@link PDFTextStripper} that also keeps the glyph positions of the page it just
+ * processed, grouped into {@link TextLine}s. Use it one page at a time
+ * (setStartPage/setEndPage to the same page) and read {@link #getLayout()} afterwards.
+ * Glyphs inside the excluded header/footer bands are left out of both the text and the layout.
+ */
+public class PageLayoutStripper extends PDFTextStripper {
+
+	private final List<TextPosition> positions = new ArrayList<>();
+	private PageLayout layout = new PageLayout(List.of(), 0);
+	private float pageHeight;
+	private float headerBottom = -1f;
+	private float footerTop = Float.MAX_VALUE;
+
+	/**
+	 * Skip glyphs whose baseline is at or above {@code headerBottom}, or whose top is at or
+	 * below {@code footerTop} (y grows downwards). Use -1 / {@link Float#MAX_VALUE} for none.
+	 */
+	public void setExcludedBands(float headerBottom, float footerTop) {
+		this.headerBottom = headerBottom;
+		this.footerTop = footerTop;
+	}
+
+	@Override
+	protected void startPage(PDPage page) throws IOException {
+		positions.clear();
+		pageHeight = page.getCropBox().getHeight();
+		super.startPage(page);
+	}
+
+	@Override
+	protected void processTextPosition(TextPosition text) {
+		float baseline = text.getYDirAdj();
+		if (baseline <= headerBottom + 0.5f || baseline - text.getHeightDir() >= footerTop - 0.5f) {
+			return;
+		}
+		super.processTextPosition(text);
+		positions.add(text);
+	}
+
+	@Override
+	protected void endPage(PDPage page) throws IOException {
+		layout = new PageLayout(TextLine.group(positions), pageHeight);
+		positions.clear();
+		super.endPage(page);
+	}
+
+	public PageLayout getLayout() {
+		return layout;
+	}
+}
@@ -0,0 +1,16 @@
+package com.odedia.analyzer.rtl;
+
+import java.util.List;
+
+/**
+ * One cleaned page as produced by the streaming variant of
+ * {@link HebrewEnglishPdfPerPageExtractor#extractPages(org.springframework.web.multipart.MultipartFile, ExtractionMode, boolean, java.util.function.Consumer)}.
+ *
+ * @param number 1-based page number
+ * @param documentLanguage language of the whole document, decided before the first page is handed out
+ * @param headers running headers removed from the document's pages
+ * @param footers running footers removed from the document's pages
+ */
+public record PdfPage(int number, String text, ScriptStatistics statistics, String documentLanguage,
+		List<String> headers, List<String> footers) {
+}
@@ -0,0 +1,147 @@
+package com.odedia.analyzer.rtl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts Hebrew, Latin, digit and other-script characters of a {@link CharSequence}
+ * in place, without copying it. Instances are mutable accumulators: feed them page by
+ * page while extracting and {@link #add(ScriptStatistics) merge} them for document totals.
+ */
+public class ScriptStatistics {
+
+	/** Scan granularity used by {@link #detectDominantLanguage(CharSequence)} between early-exit checks. */
+	private static final int BLOCK = 4096;
+
+	/** Minimum number of Hebrew + Latin letters before a decision can be considered settled. */
+	private static final int MIN_SAMPLE = 400;
+
+	/**
+	 * Hebrew/Latin split is treated as a binomial sample; the decision is settled once the
+	 * difference exceeds this many standard deviations of a 50/50 split.
+	 */
+	private static final double Z = 4.0;
+
+	private int hebrew;
+	private int latin;
+	private int digits;
+	private int other;
+
+	public ScriptStatistics accept(CharSequence text) {
+		return accept(text, 0, text.length());
+	}
+
+	public ScriptStatistics accept(CharSequence text, int from, int to) {
+		for (int i = from; i < to; i++) {
+			accept(text.charAt(i));
+		}
+		return this;
+	}
+
+	public void accept(char c) {
+		if (c < 0x80) {
+			if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')) latin++;
+			else if (c >= '0' && c <= '9') digits++;
+		} else if ((c >= '\u0590' && c <= '\u05FF') || (c >= '\uFB1D' && c <= '\uFB4F')) {
+			hebrew++;
+		} else if (c >= '\u00C0' && c <= '\u024F' && Character.isLetter(c)) {
+			latin++;
+		} else if (Character.isDigit(c)) {
+			digits++;
+		} else if (Character.isLetter(c)) {
+			other++;
+		}
+	}
+
+	public ScriptStatistics add(ScriptStatistics stats) {
+		hebrew += stats.hebrew;
+		latin += stats.latin;
+		digits += stats.digits;
+		other += stats.other;
+		return this;
+	}
+
+	/**
+	 * True once enough letters have been seen that further input is very unlikely to
+	 * flip the Hebrew/English decision.
+	 */
+	public boolean isSettled() {
+		int n = hebrew + latin;
+		return n >= MIN_SAMPLE && Math.abs(hebrew - latin) > Z * Math.sqrt(n);
+	}
+
+	/**
+	 * "he" or "en"; ties (including no letters at all) go to Hebrew, as before.
+	 */
+	public String dominantLanguage() {
+		return hebrew >= latin ? "he" : "en";
+	}
+
+	/**
+	 * Language of this sample if it has enough letters to judge on its own, otherwise the fallback.
+	 */
+	public String dominantLanguageOr(String fallback) {
+		return hebrew + latin < 20 ? fallback : dominantLanguage();
+	}
+
+	public int getHebrew() {
+		return hebrew;
+	}
+
+	public int getLatin() {
+		return latin;
+	}
+
+	public int getDigits() {
+		return digits;
+	}
+
+	public int getOther() {
+		return other;
+	}
+
+	public double hebrewRatio() {
+		return ratio(hebrew);
+	}
+
+	public double latinRatio() {
+		return ratio(latin);
+	}
+
+	/**
+	 * Script ratios rounded to three decimals, for chunk metadata.
+	 */
+	public Map<String, Object> toMetadata() {
+		Map<String, Object> metadata = new LinkedHashMap<>();
+		metadata.put("hebrewRatio", round(ratio(hebrew)));
+		metadata.put("latinRatio", round(ratio(latin)));
+		metadata.put("digitRatio", round(ratio(digits)));
+		metadata.put("otherRatio", round(ratio(other)));
+		return metadata;
+	}
+
+	private double ratio(int count) {
+		int total = hebrew + latin + digits + other;
+		return total == 0 ? 0.0 : (double) count / total;
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+
+	/**
+	 * Scans in blocks and stops as soon as the decision is settled, so a long
+	 * single-language document is decided from its first few thousand characters.
+	 */
+	public static String detectDominantLanguage(CharSequence text) {
+		ScriptStatistics stats = new ScriptStatistics();
+		int length = text.length();
+		for (int from = 0; from < length; from += BLOCK) {
+			stats.accept(text, from, Math.min(from + BLOCK, length));
+			if (stats.isSettled()) {
+				break;
+			}
+		}
+		return stats.dominantLanguage();
+	}
+}
@@ -0,0 +1,174 @@
+package com.odedia.analyzer.rtl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.pdfbox.text.TextPosition;
+
+/**
+ * One line of a page rebuilt from glyph positions. {@link #getVisualText()} is the
+ * glyphs left to right as drawn; {@link #getLogicalText()} is the reading order.
+ * Coordinates are PDFBox "direction adjusted" user space, y growing downwards.
+ */
+public class TextLine {
+
+	/** Share of RTL characters above which a line is treated as right-to-left, as in the old fix_hebrew_text. */
+	private static final double RTL_LINE_THRESHOLD = 0.3;
+
+	private final String visualText;
+	private final float top;
+	private final float bottom;
+	private final float left;
+	private final float right;
+	private final boolean rightToLeft;
+
+	private TextLine(String visualText, float top, float bottom, float left, float right, boolean rightToLeft) {
+		this.visualText = visualText;
+		this.top = top;
+		this.bottom = bottom;
+		this.left = left;
+		this.right = right;
+		this.rightToLeft = rightToLeft;
+	}
+
+	public String getVisualText() {
+		return visualText;
+	}
+
+	public String getLogicalText() {
+		return rightToLeft ? BidiNormalizer.toLogical(visualText) : visualText;
+	}
+
+	public float getTop() {
+		return top;
+	}
+
+	public float getBottom() {
+		return bottom;
+	}
+
+	public float getLeft() {
+		return left;
+	}
+
+	public float getRight() {
+		return right;
+	}
+
+	public boolean isRightToLeft() {
+		return rightToLeft;
+	}
+
+	/**
+	 * Groups a page's glyphs into lines by baseline, top to bottom.
+	 */
+	public static List<TextLine> group(List<TextPosition> positions) {
+		List<TextPosition> sorted = new ArrayList<>(positions);
+		sorted.sort(Comparator.comparingDouble(TextPosition::getYDirAdj).thenComparingDouble(TextPosition::getXDirAdj));
+
+		List<TextLine> lines = new ArrayList<>();
+		List<TextPosition> current = new ArrayList<>();
+		float baseline = 0;
+		float tolerance = 0;
+		for (TextPosition position : sorted) {
+			if (!current.isEmpty() && Math.abs(position.getYDirAdj() - baseline) > tolerance) {
+				lines.add(build(current));
+				current.clear();
+			}
+			if (current.isEmpty()) {
+				baseline = position.getYDirAdj();
+				tolerance = Math.max(position.getHeightDir(), 1f) * 0.5f;
+			}
+			current.add(position);
+		}
+		if (!current.isEmpty()) {
+			lines.add(build(current));
+		}
+		lines.removeIf(line -> line.visualText.isBlank());
+		return lines;
+	}
+
+	private static TextLine build(List<TextPosition> positions) {
+		positions.sort(Comparator.comparingDouble(TextPosition::getXDirAdj));
+		StringBuilder text = new StringBuilder(positions.size() + 8);
+		float top = Float.MAX_VALUE;
+		float bottom = -Float.MAX_VALUE;
+		float left = positions.get(0).getXDirAdj();
+		float right = left;
+		int rtl = 0;
+		int visible = 0;
+		TextPosition previous = null;
+		for (TextPosition p : positions) {
+			String unicode = p.getUnicode();
+			if (unicode == null || unicode.isEmpty()) {
+				continue;
+			}
+			// fake bold: the same glyph drawn twice at (almost) the same spot
+			if (previous != null && unicode.equals(previous.getUnicode())
+					&& Math.abs(p.getXDirAdj() - previous.getXDirAdj()) < 0.5f) {
+				continue;
+			}
+			if (previous != null) {
+				float gap = p.getXDirAdj() - (previous.getXDirAdj() + previous.getWidthDirAdj());
+				float spaceWidth = p.getWidthOfSpace() > 0 ? p.getWidthOfSpace() : p.getWidthDirAdj();
+				if (gap > spaceWidth * 0.5f && text.length() > 0 && text.charAt(text.length() - 1) != ' '
+						&& !unicode.startsWith(" ")) {
+					text.append(' ');
+				}
+			}
+			text.append(unicode);
+			for (int i = 0; i < unicode.length(); i++) {
+				char c = unicode.charAt(i);
+				if (!Character.isWhitespace(c)) {
+					visible++;
+					if (c >= '\u0590' && c <= '\u05FF') {
+						rtl++;
+					}
+				}
+			}
+			top = Math.min(top, p.getYDirAdj() - p.getHeightDir());
+			bottom = Math.max(bottom, p.getYDirAdj());
+			right = Math.max(right, p.getXDirAdj() + p.getWidthDirAdj());
+			previous = p;
+		}
+		return new TextLine(text.toString().trim(), top, bottom, left, right,
+				visible > 0 && rtl > visible * RTL_LINE_THRESHOLD);
+	}
+
+	/**
+	 * Joins lines into page text in reading order, separating paragraphs with a blank
+	 * line wherever the vertical gap is clearly larger than the usual line spacing.
+	 */
+	public static String toParagraphs(List<TextLine> lines) {
+		if (lines.isEmpty()) {
+			return "";
+		}
+		float[] gaps = new float[Math.max(lines.size() - 1, 0)];
+		for (int i = 1; i < lines.size(); i++) {
+			gaps[i - 1] = lines.get(i).top - lines.get(i - 1).bottom;
+		}
+		float typicalGap = median(gaps);
+		float lineHeight = lines.get(0).bottom - lines.get(0).top;
+
+		StringBuilder out = new StringBuilder();
+		for (int i = 0; i < lines.size(); i++) {
+			if (i > 0) {
+				boolean paragraphBreak = gaps[i - 1] > Math.max(typicalGap * 1.6f, typicalGap + lineHeight * 0.5f);
+				out.append(paragraphBreak ? "\n\n" : "\n");
+			}
+			out.append(lines.get(i).getLogicalText());
+		}
+		return out.toString();
+	}
+
+	private static float median(float[] values) {
+		if (values.length == 0) {
+			return 0;
+		}
+		float[] copy = values.clone();
+		Arrays.sort(copy);
+		return copy[copy.length / 2];
+	}
+}
@@ -1,41 +1,30 @@
 package com.odedia.analyzer.services;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
-import org.springframework.ai.chat.client.advisor.vectorstore.QuestionAnswerAdvisor;
 import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.repository.jdbc.JdbcChatMemoryRepository;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.messages.Message;
-import org.springframework.ai.chat.prompt.PromptTemplate;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.tika.TikaDocumentReader;
-import org.springframework.ai.template.st.StTemplateRenderer;
-import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.codec.ServerSentEvent;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -45,18 +34,27 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.odedia.analyzer.db.VectorStoreCollections;
+import com.odedia.analyzer.diagnostics.DiagnosticLoggerAdvisor;
 import com.odedia.analyzer.dto.DocumentInfo;
-import com.odedia.analyzer.dto.PDFData;
-import com.odedia.analyzer.file.MultipartInputStreamFileResource;
-import com.odedia.analyzer.rtl.HebrewEnglishPdfPerPageExtractor;
+import com.odedia.analyzer.metrics.QueryStageClock;
+import com.odedia.analyzer.metrics.RagQueryMetrics;
+import com.odedia.analyzer.prompt.CompiledPrompt;
+import com.odedia.analyzer.prompt.PromptPipeline;
+import com.odedia.analyzer.ratelimit.RateLimitExceededException;
+import com.odedia.analyzer.reader.UnsupportedDocumentTypeException;
+import com.odedia.analyzer.retrieval.MultiQueryRetrieval;
+import com.odedia.analyzer.retrieval.ParentChildRetrieval;
+import com.odedia.analyzer.streaming.TokenCoalescer;
 import com.odedia.repo.jpa.ConversationRepository;
 import com.odedia.repo.model.Conversation;
 
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;;
 
@@ -70,34 +68,58 @@ public class DocumentAnalyzerService {
 	private int totalChunks = 0;
 	private int processedChunks = 0;
 
-	private VectorStore vectorStore;
+	private final VectorStoreCollections collections;
     private final DocumentRepository documentRepo;
     private final Sinks.Many<Map<String,Object>> conversationEvents = Sinks.many().multicast().onBackpressureBuffer();
 
 	private JdbcService jdbcService;
 
-	private JdbcChatMemoryRepository chatMemoryRepository;
+	private ChatMemoryRepository chatMemoryRepository;
 
 	private ConversationRepository conversationRepo;
 
-	public DocumentAnalyzerService(  VectorStore vectorStore, 
+	private final PromptPipeline promptPipeline;
+
+	private final RagQueryMetrics queryMetrics;
+
+	private final DocumentIngestionService ingestion;
+
+	private final ParentChildRetrieval retrieval;
+
+	private final MultiQueryRetrieval multiQuery;
+
+	private final TokenCoalescer tokenCoalescer;
+
+	public DocumentAnalyzerService(  VectorStoreCollections collections, 
 			ChatClient.Builder chatClientBuilder, 
 			JdbcService jdbcService,
 			@Value("${app.ai.topk}") Integer topK,
 			@Value("${app.ai.maxChatHistory}") Integer maxChatHistory,
 			DocumentRepository documentRepo,
-			JdbcChatMemoryRepository chatMemoryRepository,
+			ChatMemoryRepository chatMemoryRepository,
 			ConversationRepository conversationRepo,
-			ChatMemory chatMemory) throws IOException {
+			ChatMemory chatMemory,
+			PromptPipeline promptPipeline,
+			RagQueryMetrics queryMetrics,
+			DocumentIngestionService ingestion,
+			ParentChildRetrieval retrieval,
+			MultiQueryRetrieval multiQuery,
+			TokenCoalescer tokenCoalescer) throws IOException {
 
 		this.chatMemory = chatMemory;
-		this.vectorStore = vectorStore;
+		this.collections = collections;
 		this.jdbcService = jdbcService;
 
 		this.chatClient = chatClientBuilder.build();
         this.documentRepo = documentRepo;
         this.chatMemoryRepository = chatMemoryRepository;
         this.conversationRepo = conversationRepo;
+        this.promptPipeline = promptPipeline;
+        this.queryMetrics = queryMetrics;
+        this.ingestion = ingestion;
+        this.retrieval = retrieval;
+        this.multiQuery = multiQuery;
+        this.tokenCoalescer = tokenCoalescer;
 	}
 	
 	@PostMapping("/conversations")
@@ -123,17 +145,27 @@ public class DocumentAnalyzerService {
 	}
 
 	@PostMapping("/clearDocuments")
-	public void clearDocuments() {
+	public void clearDocuments(Principal principal,
+			@RequestHeader(value = "X-Collection", required = false) String collection) {
 		logger.info("Clearing vector store before new PDF embedding.");
 
-		this.jdbcService.clearVectorStore();		
+		if (!collections.exists(principal, collection)) {
+			return;
+		}
+		String table = collections.qualifiedTableFor(principal, collection);
+		this.jdbcService.clearVectorStore(table);
+		retrieval.deleteCollection(table);
 
 		logger.info("Done clearing vector store before new PDF embedding.");
 	}
 
     @GetMapping(path = "/list", produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<DocumentInfo> listDocuments() {
-        return documentRepo.findDistinctDocuments();
+    public List<DocumentInfo> listDocuments(Principal principal,
+    		@RequestHeader(value = "X-Collection", required = false) String collection) {
+        if (!collections.exists(principal, collection)) {
+            return List.of();
+        }
+        return documentRepo.findDistinctDocuments(collections.qualifiedTableFor(principal, collection));
     }
 
     @DeleteMapping("/conversations/{id}")
@@ -165,9 +197,15 @@ public class DocumentAnalyzerService {
     
 	@PostMapping(path = "analyze", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
 	public Flux<ServerSentEvent<Map<String, Object>>> analyze(
-	        @RequestParam("files") MultipartFile[] files) {
+	        @RequestParam("files") MultipartFile[] files,
+	        @RequestParam(value = "visualRtl", required = false) List<String> visualRtlFiles,
+	        @RequestHeader(value = "X-Collection", required = false) String collection,
+	        Principal principal) {
 
 	    Instant start = Instant.now();
+	    VectorStore vectorStore = collections.storeFor(principal, collection);
+	    String table = collections.qualifiedTableFor(principal, collection);
+	    String owner = VectorStoreCollections.owner(principal);
 
 	    Flux<ServerSentEvent<Map<String, Object>>> progressFlux = Flux.<ServerSentEvent<Map<String, Object>>>create(emitter -> {
 	        int totalChunks = 0;
@@ -176,35 +214,14 @@ public class DocumentAnalyzerService {
 	        for (MultipartFile file : files) {
 	            
 	        	try {
-	                List<Document> documents = new ArrayList<>();
 	                logger.info("File is {}", file.getOriginalFilename());
 
-	                if (isPDF(file)) {
-	                	PDFData pdfData = HebrewEnglishPdfPerPageExtractor.extractPages(file);
-	                	pdfLanguage = pdfData.getLanguage();
-	                	List<String> pages = pdfData.getStringPages();
-	                    for (String visual : pages) {
-	                        if (!visual.trim().isBlank()) {
-	                            Document doc = new Document(visual);
-	                            doc.getMetadata().put("filename", file.getOriginalFilename());
-	                            doc.getMetadata().put("language", pdfLanguage);
-	                            documents.add(doc);
-	                        }
-	                    }
-	                } else if (isWordDoc(file)) {
-	                    logger.info("Reading DOCX: {}", file.getOriginalFilename());
-	                    TikaDocumentReader reader = new TikaDocumentReader(file.getResource());
-	                    List<Document> docs = reader.read();
-	                    for (Document doc : docs) {
-	                    	pdfLanguage = HebrewEnglishPdfPerPageExtractor.detectDominantLanguage(doc.getText());
-	                        doc.getMetadata().put("filename", file.getOriginalFilename());
-	                        doc.getMetadata().put("language", pdfLanguage);
-	                        documents.add(doc);
-	                    }
-	                }
-
-	                this.vectorStore.accept(documents);
-	                totalChunks += documents.size();
+	                DocumentIngestionService.IngestedFile ingested = ingestion.ingest(file,
+	                        visualRtlFiles != null && visualRtlFiles.contains(file.getOriginalFilename()),
+	                        vectorStore, table, owner);
+	                int chunks = ingested.chunks();
+	                pdfLanguage = ingested.language();
+	                totalChunks += chunks;
 	                processedFiles++;
 
 	                emitter.next(ServerSentEvent.<Map<String, Object>>builder()
@@ -213,10 +230,17 @@ public class DocumentAnalyzerService {
 	                                "file", file.getOriginalFilename(),
 	                                "language", pdfLanguage,
 	                                "progressPercent", (int) ((processedFiles * 100.0) / files.length),
-	                                "chunks", documents.size()
+	                                "chunks", chunks
 	                        ))
 	                        .build());
 
+	            } catch (UnsupportedDocumentTypeException | RateLimitExceededException e) {
+	                emitter.next(ServerSentEvent.<Map<String, Object>>builder()
+	                        .event("error")
+	                        .data(Map.of(
+	                                "message", e.getMessage()
+	                        ))
+	                        .build());
 	            } catch (Exception e) {
 	                logger.error("Failed to process file {}", file.getOriginalFilename(), e);
 	                emitter.next(ServerSentEvent.<Map<String, Object>>builder()
@@ -252,85 +276,117 @@ public class DocumentAnalyzerService {
 	    	      .takeUntil(sse -> "jobComplete".equals(sse.event()));
 	}
 
-	private boolean isPDF(MultipartFile file) {
-		return "pdf".equals(extension(file));
-	}
-
-	private boolean isWordDoc(MultipartFile file) {
-		return "doc".equals(extension(file)) || "docx".equals(extension(file));
-	}
-
-
-
-	private String extension(MultipartFile file) {
-		String filename = file.getOriginalFilename();
-		String extension = "";
+	@PostMapping("/query")
+	public Flux<String> queryPdf(@RequestBody String question, 
+			@RequestHeader("X-Conversation-ID") String conversationId,
+			@RequestHeader("X-Chat-Language") String chatLanguage,
+			@RequestHeader(value = "X-Debug-Prompt", defaultValue = "false") boolean debugPrompt,
+			@RequestHeader(value = "X-Collection", required = false) String collection,
+			Principal principal) {
 
-		int dotIndex = filename.lastIndexOf('.');
-		if (dotIndex >= 0 && dotIndex < filename.length() - 1) {
-			extension = filename.substring(dotIndex + 1);
-		}
-		return extension.toLowerCase();
+		QueryStageClock clock = queryMetrics.start(chatLanguage);
+		Flux<String> tokens = answer(question, conversationId, chatLanguage, debugPrompt, collection, principal, clock)
+				.content();
+		return tokenCoalescer.coalesce(observed(tokens, clock));
 	}
 
 	/**
-	 * This is a potential alternative to PDFBox if nothing else works as expected.
-	 * Python seems to have a better handling of RTL PDF documents.
-	 * Code for reference is under src/main/resources/python.
-	 * @param file
-	 * @return
-	 * @throws IOException
+	 * {@link #queryPdf} as server-sent events: "token" events carrying coalesced answer text,
+	 * then a "summary" event with token usage and latency, or an "error" event. Heartbeat
+	 * comments keep the connection checked while the model is still thinking, so a client
+	 * that goes away cancels the model call within one heartbeat.
 	 */
-	private List<String> sendToPythonAndGetParagraphs(MultipartFile file) throws IOException {
-		RestTemplate restTemplate = new RestTemplate();
-
-		HttpHeaders headers = new HttpHeaders();
-		headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-
-		MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-		body.add("file", new MultipartInputStreamFileResource(file.getInputStream(), file.getOriginalFilename()));
-
-		HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-
-		String url = "http://127.0.0.1:5000/extract";
-
-		ResponseEntity<List<String>> response = restTemplate.exchange(
-				url,
-				HttpMethod.POST,
-				requestEntity,
-				new ParameterizedTypeReference<List<String>>() {}
-				);
-
-		if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
-			throw new IOException("Failed to extract paragraphs from Python service");
-		}
-
-		Object paragraphObj = response.getBody();
-		if (!(paragraphObj instanceof List<?>)) {
-			throw new IOException("Invalid response: 'paragraphs' field missing or not a list");
-		}
-
-		@SuppressWarnings("unchecked")
-		List<String> paragraphs = ((List<String>) paragraphObj).stream().collect(Collectors.toList());
-
-		return paragraphs;
-	}
-
-
-	@PostMapping("/query")
-	public Flux<String> queryPdf(@RequestBody String question, 
+	@PostMapping(path = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<Map<String, Object>>> queryPdfEvents(@RequestBody String question,
 			@RequestHeader("X-Conversation-ID") String conversationId,
 			@RequestHeader("X-Chat-Language") String chatLanguage,
-			@Value("${app.ai.topk}") Integer topK,
-			@Value("${app.ai.beChatty}") String beChatty,
-			@Value("${app.ai.promptTemplate}") String promptTemplate,
-			@Value("${app.ai.systemText}") String systemText) {
+			@RequestHeader(value = "X-Debug-Prompt", defaultValue = "false") boolean debugPrompt,
+			@RequestHeader(value = "X-Collection", required = false) String collection,
+			Principal principal) {
+
+		long start = System.nanoTime();
+		QueryStageClock clock = queryMetrics.start(chatLanguage);
+		AtomicReference<Usage> usage = new AtomicReference<>();
+		AtomicLong firstChunk = new AtomicLong();
+		AtomicInteger chars = new AtomicInteger();
+
+		Flux<String> tokens = observed(
+				answer(question, conversationId, chatLanguage, debugPrompt, collection, principal, clock).chatResponse(),
+				clock)
+				.doOnNext(response -> {
+					if (response.getMetadata() != null && response.getMetadata().getUsage() != null
+							&& response.getMetadata().getUsage().getTotalTokens() != null
+							&& response.getMetadata().getUsage().getTotalTokens() > 0) {
+						usage.set(response.getMetadata().getUsage());
+					}
+				})
+				.map(response -> response.getResult() == null || response.getResult().getOutput().getText() == null
+						? ""
+						: response.getResult().getOutput().getText())
+				.filter(text -> !text.isEmpty());
+
+		Flux<ServerSentEvent<Map<String, Object>>> answerEvents = tokenCoalescer.coalesce(tokens)
+				.map(text -> {
+					firstChunk.compareAndSet(0, System.nanoTime());
+					chars.addAndGet(text.length());
+					return ServerSentEvent.<Map<String, Object>>builder()
+							.event("token")
+							.data(Map.of("text", text))
+							.build();
+				})
+				.concatWith(Mono.fromSupplier(() -> {
+					Map<String, Object> summary = new LinkedHashMap<>();
+					Usage u = usage.get();
+					if (u != null) {
+						summary.put("promptTokens", u.getPromptTokens());
+						summary.put("completionTokens", u.getCompletionTokens());
+					}
+					summary.put("chars", chars.get());
+					summary.put("firstChunkMillis", firstChunk.get() == 0 ? -1 : (firstChunk.get() - start) / 1_000_000);
+					summary.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+					return ServerSentEvent.<Map<String, Object>>builder()
+							.event("summary")
+							.data(summary)
+							.build();
+				}))
+				.onErrorResume(e -> {
+					logger.warn("Streamed answer for conversation {} failed: {}", conversationId, e.toString());
+					return Mono.just(ServerSentEvent.<Map<String, Object>>builder()
+							.event("error")
+							.data(Map.of("message", "Failed to answer the question"))
+							.build());
+				});
+
+		Flux<ServerSentEvent<Map<String, Object>>> heartbeatFlux = Flux.interval(Duration.ofSeconds(15))
+				.map(tick -> ServerSentEvent.<Map<String, Object>>builder()
+						.comment("heartbeat")
+						.build());
+
+		return Flux.merge(answerEvents, heartbeatFlux)
+				.takeUntil(sse -> "summary".equals(sse.event()) || "error".equals(sse.event()))
+				.doOnCancel(() -> logger.debug("Client left conversation {}; cancelling the answer", conversationId));
+	}
 
-		Conversation conv = conversationRepo.findById(UUID.fromString(conversationId))
+	/**
+	 * Touches the conversation, starts title generation for new ones, and wires the prompt with the
+	 * shared advisors (stage timing, sampled diagnostics, memory) plus the collection's retrieval.
+	 */
+	private ChatClient.StreamResponseSpec answer(String question, String conversationId, String chatLanguage,
+			boolean debugPrompt, String collection, Principal principal, QueryStageClock clock) {
+
+		Conversation conv;
+		try {
+			conv = conversationRepo.findById(UUID.fromString(conversationId))
 			    .orElseThrow();
 
 			conv.setLastActive(Instant.now());
 			conversationRepo.save(conv);
+		} catch (RuntimeException e) {
+			clock.error(e);
+			clock.finish(SignalType.ON_ERROR);
+			throw e;
+		}
+		clock.lap("conversation");
 
 			// check if title is still placeholder
 			if (conv.getTitle() == null || conv.getTitle().startsWith("New Chat") || conv.getTitle().startsWith("...")) {
@@ -339,45 +395,35 @@ public class DocumentAnalyzerService {
 			    .subscribe();
 			}
 	    
-		logger.info(" the prompt template is: " + promptTemplate);
-		logger.info("Received question: {}", question);
-		logger.info("Chat Language is set to {}", "he".equals(chatLanguage) ? "Hebrew" : "English");
-		systemText += ("yes".equals(beChatty) ? 
-				"Try to engage in conversation and invoke a dialog." : 
-				"Never ask the user questions back.");
-
-		systemText += ("he".equals(chatLanguage) ? 
-				    "You must respond in Hebrew. " : 
-					"You must respond in English. ");
-
-		logger.info("System text is: {}", systemText);
-
-		PromptTemplate customPromptTemplate = PromptTemplate.builder()
-				.renderer(
-						StTemplateRenderer.builder()
-						.startDelimiterToken('<')
-						.endDelimiterToken('>')
-						.build()
-						)
-				.template(promptTemplate)
-				.build();
-
-		// 3) Wire it all together, plus logging & memory for debug
+		logger.debug("Received question for conversation {} ({} chars)", conversationId, question.length());
+		logger.debug("Chat Language is set to {}", "he".equals(chatLanguage) ? "Hebrew" : "English");
+		CompiledPrompt prompt = promptPipeline.select(collection, chatLanguage);
+		clock.lap("prompt");
+
 		return chatClient
 				.prompt(question)
-				.system(systemText)
-				.advisors(
-						SimpleLoggerAdvisor.builder().build(),                       // logs full, interpolated prompt
-						MessageChatMemoryAdvisor.builder(this.chatMemory)           // preserves conversation
-						.conversationId(conversationId)
-						.build(),
-						QuestionAnswerAdvisor.builder(vectorStore)
-						.searchRequest(SearchRequest.builder().topK(topK).build())
-						.promptTemplate(customPromptTemplate)
-						.build()
-						)
-				.stream()
-				.content();
+				.system(prompt.systemText())
+				.advisors(a -> a
+						.param(ChatMemory.CONVERSATION_ID, conversationId)
+						.param(DiagnosticLoggerAdvisor.FORCE_CAPTURE, debugPrompt)
+						.param(QueryStageClock.CONTEXT_KEY, clock))
+				.advisors(promptPipeline.advisors())
+				.advisors(prompt.questionAnswerAdvisor(
+						multiQuery.searchStore(retrieval.searchStore(collections.readStoreFor(principal, collection)))))
+				.stream();
+	}
+
+	/**
+	 * Counts every streamed element as a token on the query clock, before any coalescing, and
+	 * ends the clock however the stream ends, including a cancel when the client disconnects.
+	 */
+	private <T> Flux<T> observed(Flux<T> answer, QueryStageClock clock) {
+		return answer
+				.doOnNext(token -> clock.token())
+				.doOnError(clock::error)
+				.doFinally(clock::finish)
+				// parent the Spring AI chat/embedding/vector store observations to this query
+				.contextWrite(ctx -> ctx.put(ObservationThreadLocalAccessor.KEY, clock.observation()));
 	}
 
 	@GetMapping("progress")
@@ -397,7 +443,7 @@ public class DocumentAnalyzerService {
 	        String firstUserMessage,
 	        String lang
 	) {
-	    logger.info("Received request to generate title for UUID {} and message {}", conversationId, firstUserMessage);
+	    logger.debug("Received request to generate title for UUID {}", conversationId);
 
 	    if (conversationId == null) {
 	        return Mono.empty();
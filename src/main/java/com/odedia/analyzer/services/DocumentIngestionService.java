@@ -0,0 +1,150 @@
+package com.odedia.analyzer.services;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.odedia.analyzer.ratelimit.RateLimitExceededException;
+import com.odedia.analyzer.ratelimit.RateLimiter;
+import com.odedia.analyzer.ratelimit.RateLimiter.Budget;
+import com.odedia.analyzer.reader.DocumentChunkReader;
+import com.odedia.analyzer.reader.ReadOptions;
+import com.odedia.analyzer.reader.ReaderRegistry;
+import com.odedia.analyzer.reader.UnsupportedDocumentTypeException;
+import com.odedia.analyzer.retrieval.ParentChildRetrieval;
+import com.odedia.analyzer.rtl.ExtractionMode;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reads one file into chunks and stores them in a collection's vector store. Shared by the
+ * multipart {@code analyze} endpoint and completed resumable uploads.
+ */
+@Service
+public class DocumentIngestionService {
+
+	private final Logger logger = LoggerFactory.getLogger(DocumentIngestionService.class);
+
+	public record IngestedFile(String mimeType, String language, int chunks) {
+	}
+
+	private final ReaderRegistry readerRegistry;
+	private final ParentChildRetrieval retrieval;
+	private final RateLimiter rateLimiter;
+
+	@Value("${app.extraction.bidiRepair:false}")
+	private boolean bidiRepair;
+
+	@Value("${app.extraction.mode:text}")
+	private String defaultExtractionMode;
+
+	@Value("${app.ingest.batchSize:32}")
+	private int ingestBatchSize;
+
+	@Value("${app.ingest.inFlightChunks:128}")
+	private int inFlightChunks;
+
+	public DocumentIngestionService(ReaderRegistry readerRegistry, ParentChildRetrieval retrieval,
+			RateLimiter rateLimiter) {
+		this.readerRegistry = readerRegistry;
+		this.retrieval = retrieval;
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * @param visualRtl extract in visual RTL repair mode instead of {@code app.extraction.mode}
+	 * @param table the schema-qualified table behind {@code vectorStore}
+	 * @throws UnsupportedDocumentTypeException when no reader handles the file's type
+	 * @throws RateLimitExceededException when the owner's embedding budget is used up, before
+	 * or while the file is embedded
+	 */
+	public IngestedFile ingest(MultipartFile file, boolean visualRtl, VectorStore vectorStore, String table,
+			String owner) throws IOException {
+		String mimeType = readerRegistry.detect(file);
+		DocumentChunkReader reader = readerRegistry.readerFor(mimeType);
+		if (reader == null) {
+			logger.warn("No reader for {} ({})", file.getOriginalFilename(), mimeType);
+			throw new UnsupportedDocumentTypeException(mimeType, file.getOriginalFilename());
+		}
+
+		rateLimiter.checkAvailable(Budget.EMBEDDED_TOKENS, owner);
+
+		ExtractionMode mode = visualRtl ? ExtractionMode.VISUAL_RTL : ExtractionMode.from(defaultExtractionMode);
+		String uploadId = UUID.randomUUID().toString();
+		AtomicReference<String> documentLanguage = new AtomicReference<>();
+		// readers that can't decide the file's language up front: majority of the chunk languages
+		AtomicInteger hebrewChunks = new AtomicInteger();
+		AtomicInteger otherChunks = new AtomicInteger();
+		int chunks;
+		try {
+			chunks = ingest(vectorStore, table, uploadId, owner, reader.stream(file, new ReadOptions(mode, bidiRepair))
+					.doOnNext(doc -> {
+						doc.getMetadata().put("mimeType", mimeType);
+						doc.getMetadata().put("uploadId", uploadId);
+						doc.getMetadata().put("owner", owner);
+						documentLanguage.set((String) doc.getMetadata().get("documentLanguage"));
+						("he".equals(doc.getMetadata().get("language")) ? hebrewChunks : otherChunks).incrementAndGet();
+					}));
+		} catch (RuntimeException e) {
+			// chunks are stored batch by batch; don't leave half a file behind
+			vectorStore.delete(new FilterExpressionBuilder().eq("uploadId", uploadId).build());
+			retrieval.deleteUpload(uploadId);
+			throw e;
+		}
+		String language = documentLanguage.get();
+		if (language == null) {
+			language = chunks == 0 ? "" : hebrewChunks.get() >= otherChunks.get() ? "he" : "en";
+		}
+		return new IngestedFile(mimeType, language, chunks);
+	}
+
+	/**
+	 * Embeds and stores chunks in batches of {@code app.ingest.batchSize} while the reader is
+	 * still producing them. At most {@code app.ingest.inFlightChunks} chunks are requested
+	 * ahead of the store, so heap use is bounded by that window instead of the file size.
+	 * In parent retrieval mode each batch is stored as parents and its child chunks are embedded.
+	 * Embedding tokens are estimated at four characters per token. Before each batch the file's
+	 * total so far must still fit the owner's embedding budget, and the total is charged only
+	 * once the whole file is stored, so a file that is rolled back costs nothing.
+	 *
+	 * @return the number of chunks embedded
+	 */
+	private int ingest(VectorStore vectorStore, String table, String uploadId, String owner,
+			Flux<Document> chunks) {
+		AtomicLong tokens = new AtomicLong();
+		int stored = chunks
+				.limitRate(inFlightChunks)
+				.buffer(ingestBatchSize)
+				.concatMap(batch -> Mono.fromCallable(() -> {
+					rateLimiter.checkAvailable(Budget.EMBEDDED_TOKENS, owner,
+							tokens.addAndGet(estimateTokens(batch)));
+					return retrieval.store(vectorStore, table, uploadId, batch);
+				}).subscribeOn(Schedulers.boundedElastic()), 1)
+				.reduce(0, Integer::sum)
+				.block();
+		rateLimiter.charge(Budget.EMBEDDED_TOKENS, owner, tokens.get());
+		return stored;
+	}
+
+	private static long estimateTokens(List<Document> batch) {
+		long chars = 0;
+		for (Document doc : batch) {
+			chars += doc.getText() == null ? 0 : doc.getText().length();
+		}
+		return (chars + 3) / 4;
+	}
+}
@@ -17,20 +17,25 @@ public class DocumentRepository {
 
     /**
      * Pulls out distinct filename/language for a specific owner from the JSON metadata column.
+     * The table is schema-qualified and comes from VectorStoreCollections, never from the request.
+     * Chunks carry their own 'language'; the file-level one is 'documentLanguage' where the reader
+     * knew it up front (PDF). One row per file: its most common language across chunks.
      */
-    public List<DocumentInfo> findDistinctDocumentsByOwner(String owner) {
+    public List<DocumentInfo> findDistinctDocumentsByOwner(String table, String owner) {
         String sql = """
-        SELECT DISTINCT
+        SELECT
             metadata::jsonb ->> 'filename'  AS filename,
-            metadata::jsonb ->> 'language'  AS language
-        FROM vector_store
+            mode() WITHIN GROUP (ORDER BY COALESCE(metadata::jsonb ->> 'documentLanguage',
+                                                   metadata::jsonb ->> 'language')) AS language
+        FROM %s
         WHERE jsonb_exists(metadata::jsonb, 'filename')
           AND jsonb_exists(metadata::jsonb, 'language')
           AND metadata::jsonb ->> 'owner' = ?
+        GROUP BY 1
         ORDER BY
             language ASC,
             filename ASC
-        """;
+        """.formatted(table);
         return jdbc.query(sql, (rs, rowNum) ->
             new DocumentInfo(
                 rs.getString("filename"),
@@ -42,18 +47,20 @@ public class DocumentRepository {
     /**
      * Pulls out distinct filename/language for all documents regardless of owner.
      */
-    public List<DocumentInfo> findDistinctDocuments() {
+    public List<DocumentInfo> findDistinctDocuments(String table) {
         String sql = """
-        SELECT DISTINCT
+        SELECT
             metadata::jsonb ->> 'filename'  AS filename,
-            metadata::jsonb ->> 'language'  AS language
-        FROM vector_store
+            mode() WITHIN GROUP (ORDER BY COALESCE(metadata::jsonb ->> 'documentLanguage',
+                                                   metadata::jsonb ->> 'language')) AS language
+        FROM %s
         WHERE jsonb_exists(metadata::jsonb, 'filename')
           AND jsonb_exists(metadata::jsonb, 'language')
+        GROUP BY 1
         ORDER BY
             language ASC,
             filename ASC
-        """;
+        """.formatted(table);
         return jdbc.query(sql, (rs, rowNum) ->
             new DocumentInfo(
                 rs.getString("filename"),
@@ -9,7 +9,10 @@ public class JdbcService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    public void clearVectorStore() {
-        jdbcTemplate.update("TRUNCATE TABLE vector_store RESTART IDENTITY");
+    /**
+     * @param table schema-qualified table name, as resolved by VectorStoreCollections (never user input)
+     */
+    public void clearVectorStore(String table) {
+        jdbcTemplate.update("TRUNCATE TABLE " + table + " RESTART IDENTITY");
     }
 }
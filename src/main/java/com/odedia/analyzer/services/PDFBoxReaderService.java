@@ -32,7 +32,7 @@ public class PDFBoxReaderService {
             pagesText.add(text.trim());
         }
         document.close();
-        logger.info("\n\n{}\n\n",pagesText);
+        logger.debug("Extracted {} pages from {}", pagesText.size(), pdfFile.getOriginalFilename());
         return pagesText;
     }
 }
@@ -0,0 +1,126 @@
+package com.odedia.analyzer.startup;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.ollama.api.OllamaApi;
+import org.springframework.ai.ollama.management.OllamaModelManager;
+import org.springframework.ai.ollama.management.PullModelStrategy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StopWatch;
+
+import com.odedia.analyzer.db.VectorSchemaInitializer;
+
+/**
+ * With {@code app.startup.deferred-init: true} (the fast-start profile), schema creation and
+ * Ollama model pulls run on a background thread once the context is up, instead of blocking
+ * startup. The instance reports {@link ReadinessState#REFUSING_TRAFFIC} until they finish,
+ * so a load balancer watching {@code /actuator/health/readiness} only routes to it afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "app.startup.deferred-init", havingValue = "true")
+public class DeferredInitializer {
+
+	private static final Logger logger = LoggerFactory.getLogger(DeferredInitializer.class);
+
+	private static final String CHAT_MEMORY_SCHEMA = "org/springframework/ai/chat/memory/repository/jdbc/schema-postgresql.sql";
+	private static final String APP_SCHEMA = "db/fast-start-schema.sql";
+	private static final String SQL_INIT_SCHEMA = "schema.sql";
+
+	private final ApplicationContext context;
+	private final DataSource dataSource;
+	private final VectorSchemaInitializer vectorSchemaInitializer;
+	private final ObjectProvider<OllamaApi> ollamaApi;
+	private final AtomicBoolean done = new AtomicBoolean();
+
+	@Value("${spring.ai.model.chat:ollama}")
+	private String chatModelProvider;
+
+	@Value("${spring.ai.model.embedding:ollama}")
+	private String embeddingModelProvider;
+
+	@Value("${spring.ai.ollama.chat.options.model:}")
+	private String chatModel;
+
+	@Value("${spring.ai.ollama.embedding.options.model:}")
+	private String embeddingModel;
+
+	public DeferredInitializer(ApplicationContext context, DataSource dataSource,
+			VectorSchemaInitializer vectorSchemaInitializer, ObjectProvider<OllamaApi> ollamaApi) {
+		this.context = context;
+		this.dataSource = dataSource;
+		this.vectorSchemaInitializer = vectorSchemaInitializer;
+		this.ollamaApi = ollamaApi;
+	}
+
+	@EventListener
+	public void onStarted(ApplicationStartedEvent event) {
+		Thread thread = new Thread(this::initialize, "deferred-init");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Spring Boot marks the application ready right after startup; hold that back until
+	 * the background work is done. {@link #initialize()} may finish between the check and the
+	 * publish, so {@code done} is checked again afterwards and readiness restored if needed.
+	 */
+	@EventListener
+	public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+		if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !done.get()) {
+			AvailabilityChangeEvent.publish(context, ReadinessState.REFUSING_TRAFFIC);
+			if (done.get()) {
+				AvailabilityChangeEvent.publish(context, ReadinessState.ACCEPTING_TRAFFIC);
+			}
+		}
+	}
+
+	private void initialize() {
+		StopWatch watch = new StopWatch("deferred-init");
+		try {
+			watch.start("schema");
+			ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+					new ClassPathResource(APP_SCHEMA), new ClassPathResource(SQL_INIT_SCHEMA),
+					new ClassPathResource(CHAT_MEMORY_SCHEMA));
+			populator.execute(dataSource);
+			watch.stop();
+
+			watch.start("vector-schema");
+			vectorSchemaInitializer.initialize();
+			watch.stop();
+
+			OllamaApi api = ollamaApi.getIfAvailable();
+			if (api != null) {
+				watch.start("ollama-models");
+				OllamaModelManager models = new OllamaModelManager(api);
+				if ("ollama".equals(chatModelProvider) && !chatModel.isBlank()) {
+					models.pullModel(chatModel, PullModelStrategy.WHEN_MISSING);
+				}
+				if ("ollama".equals(embeddingModelProvider) && !embeddingModel.isBlank()) {
+					models.pullModel(embeddingModel, PullModelStrategy.WHEN_MISSING);
+				}
+				watch.stop();
+			}
+
+			done.set(true);
+			AvailabilityChangeEvent.publish(context, ReadinessState.ACCEPTING_TRAFFIC);
+			logger.info("Deferred initialization finished: {}", watch.prettyPrint());
+		} catch (RuntimeException e) {
+			// stay out of rotation; the liveness probe keeps the instance up for diagnosis
+			logger.error("Deferred initialization failed, instance stays not ready", e);
+		}
+	}
+}
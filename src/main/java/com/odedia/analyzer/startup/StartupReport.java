@@ -0,0 +1,54 @@
+package com.odedia.analyzer.startup;
+
+import java.util.Comparator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the slowest startup steps recorded by the {@link BufferingApplicationStartup} that
+ * {@code PdfAnalyzerApplication} installs. The full timeline stays available at
+ * {@code /actuator/startup}.
+ */
+@Component
+public class StartupReport {
+
+	private static final Logger logger = LoggerFactory.getLogger(StartupReport.class);
+
+	private static final int SLOWEST = 10;
+
+	private final ApplicationContext context;
+
+	public StartupReport(ApplicationContext context) {
+		this.context = context;
+	}
+
+	@EventListener
+	public void onReady(ApplicationReadyEvent event) {
+		ApplicationStartup startup = event.getSpringApplication().getApplicationStartup();
+		if (!(startup instanceof BufferingApplicationStartup buffering) || !logger.isInfoEnabled()) {
+			return;
+		}
+		StartupTimeline timeline = buffering.getBufferedTimeline();
+		StringBuilder report = new StringBuilder();
+		timeline.getEvents().stream()
+				.sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+				.limit(SLOWEST)
+				.forEach(e -> {
+					report.append(String.format("%n  %6d ms  %s", e.getDuration().toMillis(), e.getStartupStep().getName()));
+					for (StartupStep.Tag tag : e.getStartupStep().getTags()) {
+						report.append(' ').append(tag.getKey()).append('=').append(tag.getValue());
+					}
+				});
+		logger.info("{} ready in {} ms; slowest startup steps:{}", context.getId(), event.getTimeTaken().toMillis(),
+				report);
+	}
+}
@@ -0,0 +1,38 @@
+package com.odedia.analyzer.streaming;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Joins streamed answer tokens into larger chunks before they are written, so an answer is
+ * a few dozen HTTP writes (and flushes) instead of one per token. A chunk is emitted after
+ * {@code app.ai.stream.window} or once it holds {@code app.ai.stream.maxTokens} tokens,
+ * whichever comes first, so the first words still appear without a noticeable delay.
+ * Zero for either disables coalescing.
+ */
+@Component
+public class TokenCoalescer {
+
+	private final Duration window;
+	private final int maxTokens;
+
+	public TokenCoalescer(@Value("${app.ai.stream.window:50ms}") Duration window,
+			@Value("${app.ai.stream.maxTokens:64}") int maxTokens) {
+		this.window = window;
+		this.maxTokens = maxTokens;
+	}
+
+	public Flux<String> coalesce(Flux<String> tokens) {
+		if (window.isZero() || maxTokens <= 0) {
+			return tokens;
+		}
+		return tokens
+				// fair backpressure: hold a due chunk until the servlet writer asks for it instead of failing
+				.bufferTimeout(maxTokens, window, true)
+				.map(chunk -> chunk.size() == 1 ? chunk.get(0) : String.join("", chunk));
+	}
+}
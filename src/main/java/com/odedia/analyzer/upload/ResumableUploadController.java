@@ -0,0 +1,75 @@
+package com.odedia.analyzer.upload;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resumable alternative to the multipart {@code /document/analyze} upload, one file per upload:
+ * <pre>
+ *   POST   /document/uploads                  {"filename", "size", "sha256", "visualRtl"}  -> uploadId
+ *   PUT    /document/uploads/{id}?offset=N    raw bytes, appended at N (the current offset)
+ *   GET    /document/uploads/{id}             offset to resume from, state, chunks once ingested
+ *   POST   /document/uploads/{id}/complete    verify the checksum and start ingestion
+ *   DELETE /document/uploads/{id}
+ * </pre>
+ * Like {@code analyze}, the optional X-Collection header selects the collection.
+ */
+@RestController
+@RequestMapping("/document/uploads")
+public class ResumableUploadController {
+
+	public record StartUpload(String filename, long size, String sha256, boolean visualRtl) {
+	}
+
+	private final ResumableUploads uploads;
+
+	public ResumableUploadController(ResumableUploads uploads) {
+		this.uploads = uploads;
+	}
+
+	@PostMapping
+	public Map<String, Object> start(@RequestBody StartUpload request,
+			@RequestHeader(value = "X-Collection", required = false) String collection,
+			Principal principal) {
+		return uploads.start(principal, collection, request.filename(), request.size(), request.sha256(),
+				request.visualRtl());
+	}
+
+	@PutMapping("/{id}")
+	public Map<String, Object> writePart(@PathVariable String id, @RequestParam("offset") long offset,
+			HttpServletRequest request, Principal principal) throws IOException {
+		return uploads.write(principal, id, offset, request.getInputStream());
+	}
+
+	@GetMapping("/{id}")
+	public Map<String, Object> status(@PathVariable String id, Principal principal) {
+		return uploads.status(principal, id);
+	}
+
+	@PostMapping("/{id}/complete")
+	public ResponseEntity<Map<String, Object>> complete(@PathVariable String id, Principal principal)
+			throws IOException {
+		return ResponseEntity.accepted().body(uploads.complete(principal, id));
+	}
+
+	@DeleteMapping("/{id}")
+	public ResponseEntity<Void> cancel(@PathVariable String id, Principal principal) throws IOException {
+		uploads.cancel(principal, id);
+		return ResponseEntity.noContent().build();
+	}
+}
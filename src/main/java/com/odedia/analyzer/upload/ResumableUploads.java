@@ -0,0 +1,340 @@
+package com.odedia.analyzer.upload;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.odedia.analyzer.db.VectorStoreCollections;
+import com.odedia.analyzer.file.FileMultipartFile;
+import com.odedia.analyzer.ratelimit.RateLimitExceededException;
+import com.odedia.analyzer.reader.UnsupportedDocumentTypeException;
+import com.odedia.analyzer.services.DocumentIngestionService;
+import com.odedia.analyzer.services.DocumentIngestionService.IngestedFile;
+
+/**
+ * Resumable single-file uploads. Parts are appended in order, by offset, to a staging file
+ * under {@code app.upload.stagingDir} while a SHA-256 of the received bytes is kept up to date,
+ * so a dropped part is resumed from the last byte written instead of from the start. On
+ * completion the checksum is verified and the file is handed to ingestion in the background,
+ * while the client goes on uploading the next file.
+ * <p>
+ * Upload state lives in memory: an upload does not survive a restart, and leftover staging
+ * files are removed at startup. Uploads idle for {@code app.upload.expireAfter} are dropped.
+ */
+@Component
+public class ResumableUploads implements DisposableBean {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResumableUploads.class);
+
+	private static final Pattern SHA_256 = Pattern.compile("[0-9a-fA-F]{64}");
+	private static final String PART_SUFFIX = ".part";
+
+	public enum State {
+		RECEIVING, INGESTING, DONE, FAILED
+	}
+
+	private static final class Upload {
+		final String id;
+		final String owner;
+		final String filename;
+		final long size;
+		final String sha256;
+		final boolean visualRtl;
+		final VectorStore vectorStore;
+		final String table;
+		final Path file;
+		final ReentrantLock lock = new ReentrantLock();
+		MessageDigest digest = newDigest();
+		volatile long received;
+		volatile State state = State.RECEIVING;
+		volatile Instant lastActivity = Instant.now();
+		volatile IngestedFile ingested;
+		volatile String message;
+
+		Upload(String id, String owner, String filename, long size, String sha256, boolean visualRtl,
+				VectorStore vectorStore, String table, Path file) {
+			this.id = id;
+			this.owner = owner;
+			this.filename = filename;
+			this.size = size;
+			this.sha256 = sha256;
+			this.visualRtl = visualRtl;
+			this.vectorStore = vectorStore;
+			this.table = table;
+			this.file = file;
+		}
+	}
+
+	private final DocumentIngestionService ingestion;
+	private final VectorStoreCollections collections;
+	private final Path stagingDir;
+	private final long maxFileSize;
+	private final Duration expireAfter;
+	private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+	private final ExecutorService ingestExecutor;
+	private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "upload-sweeper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ResumableUploads(DocumentIngestionService ingestion, VectorStoreCollections collections,
+			@Value("${app.upload.stagingDir:${java.io.tmpdir}/pdf-analyzer-uploads}") String stagingDir,
+			@Value("${app.upload.maxFileSize:2GB}") DataSize maxFileSize,
+			@Value("${app.upload.expireAfter:24h}") Duration expireAfter,
+			@Value("${app.upload.ingestConcurrency:2}") int ingestConcurrency) throws IOException {
+		this.ingestion = ingestion;
+		this.collections = collections;
+		this.stagingDir = Files.createDirectories(Path.of(stagingDir));
+		this.maxFileSize = maxFileSize.toBytes();
+		this.expireAfter = expireAfter;
+		this.ingestExecutor = Executors.newFixedThreadPool(ingestConcurrency, r -> {
+			Thread thread = new Thread(r, "upload-ingest");
+			thread.setDaemon(true);
+			return thread;
+		});
+		removeStagingFiles();
+		long sweepMillis = Math.max(Duration.ofMinutes(1).toMillis(), expireAfter.toMillis() / 4);
+		sweeper.scheduleWithFixedDelay(this::expire, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public Map<String, Object> start(Principal principal, String collection, String filename, long size,
+			String sha256, boolean visualRtl) {
+		if (filename == null || filename.isBlank()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "filename is required");
+		}
+		if (size <= 0 || size > maxFileSize) {
+			throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+					"size must be between 1 and " + maxFileSize + " bytes");
+		}
+		if (sha256 == null || !SHA_256.matcher(sha256).matches()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sha256 must be 64 hex characters");
+		}
+		String id = UUID.randomUUID().toString();
+		Upload upload = new Upload(id, VectorStoreCollections.owner(principal), Path.of(filename).getFileName().toString(),
+				size, sha256, visualRtl, collections.storeFor(principal, collection),
+				collections.qualifiedTableFor(principal, collection), stagingDir.resolve(id + PART_SUFFIX));
+		uploads.put(id, upload);
+		logger.info("Upload {} started: {} ({} bytes)", id, upload.filename, size);
+		return status(upload);
+	}
+
+	/**
+	 * Appends {@code body} at {@code offset}, which must be the number of bytes received so far.
+	 * If the body is cut off, everything that arrived is kept and {@link #status} reports where to resume.
+	 */
+	public Map<String, Object> write(Principal principal, String id, long offset, InputStream body) throws IOException {
+		Upload upload = owned(principal, id);
+		if (!upload.lock.tryLock()) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Another part of this upload is being written");
+		}
+		try {
+			if (upload.state != State.RECEIVING) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is " + upload.state);
+			}
+			if (offset != upload.received) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Expected offset " + upload.received);
+			}
+			try (FileChannel channel = FileChannel.open(upload.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				channel.position(offset);
+				byte[] buffer = new byte[64 * 1024];
+				int n;
+				while ((n = body.read(buffer)) != -1) {
+					if (upload.received + n > upload.size) {
+						throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+								"Part goes past the declared size of " + upload.size + " bytes");
+					}
+					ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+					while (bytes.hasRemaining()) {
+						channel.write(bytes);
+					}
+					upload.digest.update(buffer, 0, n);
+					upload.received += n;
+				}
+			} finally {
+				upload.lastActivity = Instant.now();
+			}
+			return status(upload);
+		} finally {
+			upload.lock.unlock();
+		}
+	}
+
+	public Map<String, Object> status(Principal principal, String id) {
+		return status(owned(principal, id));
+	}
+
+	/**
+	 * Verifies size and checksum and queues the file for ingestion. Calling it again is harmless.
+	 * On a checksum mismatch the received bytes are discarded and the upload restarts at offset 0.
+	 */
+	public Map<String, Object> complete(Principal principal, String id) throws IOException {
+		Upload upload = owned(principal, id);
+		upload.lock.lock();
+		try {
+			if (upload.state != State.RECEIVING) {
+				return status(upload);
+			}
+			if (upload.received != upload.size) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT,
+						"Received " + upload.received + " of " + upload.size + " bytes");
+			}
+			String actual = HexFormat.of().formatHex(upload.digest.digest());
+			if (!actual.equalsIgnoreCase(upload.sha256)) {
+				Files.deleteIfExists(upload.file);
+				upload.digest = newDigest();
+				upload.received = 0;
+				throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+						"Checksum mismatch (got " + actual + "); upload again from offset 0");
+			}
+			upload.state = State.INGESTING;
+			upload.lastActivity = Instant.now();
+			ingestExecutor.execute(() -> ingest(upload));
+			return status(upload);
+		} finally {
+			upload.lock.unlock();
+		}
+	}
+
+	public void cancel(Principal principal, String id) throws IOException {
+		Upload upload = owned(principal, id);
+		// never delete the file under a write, or between complete() and ingestion opening it
+		if (!upload.lock.tryLock()) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "A part of this upload is being written");
+		}
+		try {
+			if (upload.state == State.INGESTING) {
+				throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is being ingested");
+			}
+			uploads.remove(id);
+			Files.deleteIfExists(upload.file);
+		} finally {
+			upload.lock.unlock();
+		}
+	}
+
+	private void ingest(Upload upload) {
+		State state = State.FAILED;
+		try {
+			upload.ingested = ingestion.ingest(new FileMultipartFile(upload.file.toFile(), upload.filename),
+					upload.visualRtl, upload.vectorStore, upload.table, upload.owner);
+			state = State.DONE;
+			logger.info("Upload {} ingested: {} chunks from {}", upload.id, upload.ingested.chunks(), upload.filename);
+		} catch (UnsupportedDocumentTypeException | RateLimitExceededException e) {
+			upload.message = e.getMessage();
+		} catch (Exception e) {
+			logger.error("Failed to process uploaded file {}", upload.filename, e);
+			upload.message = "Failed to process " + upload.filename;
+		} finally {
+			upload.lastActivity = Instant.now();
+			try {
+				Files.deleteIfExists(upload.file);
+			} catch (IOException e) {
+				logger.warn("Could not delete staging file {}: {}", upload.file, e.toString());
+			}
+			// published last: once a client sees DONE or FAILED the staging file is gone
+			upload.state = state;
+		}
+	}
+
+	private Upload owned(Principal principal, String id) {
+		Upload upload = uploads.get(id);
+		// someone else's upload is reported as missing, not as forbidden
+		if (upload == null || !upload.owner.equals(VectorStoreCollections.owner(principal))) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No upload " + id);
+		}
+		return upload;
+	}
+
+	private Map<String, Object> status(Upload upload) {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("uploadId", upload.id);
+		status.put("filename", upload.filename);
+		status.put("size", upload.size);
+		status.put("offset", upload.received);
+		status.put("state", upload.state);
+		IngestedFile ingested = upload.ingested;
+		if (ingested != null) {
+			status.put("language", ingested.language());
+			status.put("chunks", ingested.chunks());
+		}
+		if (upload.message != null) {
+			status.put("message", upload.message);
+		}
+		return status;
+	}
+
+	private void expire() {
+		Instant cutoff = Instant.now().minus(expireAfter);
+		uploads.values().removeIf(upload -> {
+			if (!upload.lock.tryLock()) {
+				return false;
+			}
+			try {
+				if (upload.state == State.INGESTING || upload.lastActivity.isAfter(cutoff)) {
+					return false;
+				}
+				Files.deleteIfExists(upload.file);
+			} catch (IOException e) {
+				logger.warn("Could not delete staging file {}: {}", upload.file, e.toString());
+			} finally {
+				upload.lock.unlock();
+			}
+			return true;
+		});
+	}
+
+	private void removeStagingFiles() throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(stagingDir, "*" + PART_SUFFIX)) {
+			for (Path file : files) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		sweeper.shutdownNow();
+		ingestExecutor.shutdownNow();
+	}
+}
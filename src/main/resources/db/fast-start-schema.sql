@@ -0,0 +1,8 @@
+-- Tables Hibernate creates with ddl-auto=update; the fast-start profile skips that and runs this instead.
+CREATE TABLE IF NOT EXISTS conversation (
+    id uuid NOT NULL PRIMARY KEY,
+    title varchar(255),
+    created_at timestamp(6) with time zone,
+    last_active timestamp(6) with time zone,
+    owner varchar(255)
+);
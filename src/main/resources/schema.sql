@@ -0,0 +1,25 @@
+-- Parent pages / sections for app.ai.retrieval.mode=parent; only their child chunks are embedded.
+CREATE TABLE IF NOT EXISTS document_parent (
+    id uuid NOT NULL PRIMARY KEY,
+    collection_table text NOT NULL,
+    upload_id text,
+    content text NOT NULL,
+    metadata jsonb NOT NULL
+);
+CREATE INDEX IF NOT EXISTS document_parent_collection_idx ON document_parent (collection_table);
+CREATE INDEX IF NOT EXISTS document_parent_upload_idx ON document_parent (upload_id);
+
+-- Shared rate-limit state for app.ratelimit.store=jdbc: key is "<budget>:<user>", tat in epoch microseconds.
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    key text NOT NULL PRIMARY KEY,
+    tat bigint NOT NULL
+);
+
+-- Per-owner vector tables (app.vectorstore.collections=owner), for the per-user collection limit.
+CREATE TABLE IF NOT EXISTS vector_collection (
+    table_name text NOT NULL PRIMARY KEY,
+    owner text NOT NULL,
+    collection text NOT NULL,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS vector_collection_owner_idx ON vector_collection (owner);
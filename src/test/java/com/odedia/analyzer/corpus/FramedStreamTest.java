@@ -0,0 +1,98 @@
+package com.odedia.analyzer.corpus;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+
+class FramedStreamTest {
+
+	@Test
+	void sectionsRoundTripAcrossFrames() throws IOException {
+		byte[] first = bytes(100);
+		byte[] third = bytes(7);
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		try (FramedOutputStream out = new FramedOutputStream(file, 7)) {
+			out.write(first[0]);
+			out.write(first, 1, first.length - 1);
+		}
+		new FramedOutputStream(file, 7).close();
+		try (FramedOutputStream out = new FramedOutputStream(file, 7)) {
+			out.write(third);
+		}
+
+		InputStream in = new ByteArrayInputStream(file.toByteArray());
+		assertArrayEquals(first, readSection(in));
+		assertArrayEquals(new byte[0], readSection(in));
+		assertArrayEquals(third, readSection(in));
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	void emptySectionIsOneEmptyFrame() throws IOException {
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		new FramedOutputStream(file, 16).close();
+
+		assertArrayEquals(new byte[4], file.toByteArray());
+	}
+
+	@Test
+	void closeSkipsTheRestOfAPartlyReadSection() throws IOException {
+		byte[] second = bytes(5);
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		try (FramedOutputStream out = new FramedOutputStream(file, 4)) {
+			out.write(bytes(50));
+		}
+		try (FramedOutputStream out = new FramedOutputStream(file, 4)) {
+			out.write(second);
+		}
+
+		InputStream in = new ByteArrayInputStream(file.toByteArray());
+		try (FramedInputStream section = new FramedInputStream(in)) {
+			assertEquals(0, section.read());
+			assertEquals(3, section.read(new byte[3], 0, 3));
+		}
+		assertArrayEquals(second, readSection(in));
+	}
+
+	@Test
+	void streamEndingInsideAFrameFails() throws IOException {
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(file);
+		out.writeInt(10);
+		out.write(bytes(5));
+
+		FramedInputStream section = new FramedInputStream(new ByteArrayInputStream(file.toByteArray()));
+		assertThrows(IOException.class, section::readAllBytes);
+	}
+
+	@Test
+	void negativeFrameLengthFails() throws IOException {
+		ByteArrayOutputStream file = new ByteArrayOutputStream();
+		new DataOutputStream(file).writeInt(-1);
+
+		FramedInputStream section = new FramedInputStream(new ByteArrayInputStream(file.toByteArray()));
+		assertThrows(IOException.class, section::read);
+	}
+
+	private static byte[] readSection(InputStream in) throws IOException {
+		try (FramedInputStream section = new FramedInputStream(in)) {
+			return section.readAllBytes();
+		}
+	}
+
+	private static byte[] bytes(int length) {
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) i;
+		}
+		return bytes;
+	}
+}
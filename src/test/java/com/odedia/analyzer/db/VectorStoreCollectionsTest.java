@@ -0,0 +1,195 @@
+package com.odedia.analyzer.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.security.Principal;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+class VectorStoreCollectionsTest {
+
+	private static final String HASH = "[0-9a-f]{8}";
+
+	@Test
+	void keepsReadablePrefixAndHash() {
+		assertTrue(VectorStoreCollections.slug("alice").matches("alice_" + HASH));
+		assertTrue(VectorStoreCollections.slug("Alice@Example.com").matches("alice_example_com_" + HASH));
+		assertEquals(VectorStoreCollections.slug("alice"), VectorStoreCollections.slug("alice"));
+	}
+
+	@Test
+	void keysWithTheSamePrefixGetDifferentTables() {
+		assertNotEquals(VectorStoreCollections.slug("Alice"), VectorStoreCollections.slug("alice"));
+		assertNotEquals(VectorStoreCollections.slug("a.b"), VectorStoreCollections.slug("a-b"));
+		String prefix = "x".repeat(40);
+		assertNotEquals(VectorStoreCollections.slug(prefix + "1"), VectorStoreCollections.slug(prefix + "2"));
+	}
+
+	@Test
+	void isAShortUnquotedIdentifier() {
+		for (String key : new String[] { "x".repeat(200), "משה כהן", "--bob--", "12345:docs", "" }) {
+			String slug = VectorStoreCollections.slug(key);
+			assertTrue(slug.matches("[a-z0-9_]+"), slug);
+			assertTrue(slug.length() <= 24 + 1 + 8, slug);
+			assertFalse(slug.startsWith("_") || slug.contains("__"), slug);
+		}
+	}
+
+	@Test
+	void keyWithoutLatinLettersIsJustTheHash() {
+		assertTrue(VectorStoreCollections.slug("משה כהן").matches(HASH));
+		assertTrue(VectorStoreCollections.slug("--bob--").matches("bob_" + HASH));
+	}
+
+	@Test
+	void ownerTablesAreNamedByOwnerAndCollection() {
+		VectorStoreCollections collections = ownerCollections();
+		Principal alice = () -> "alice";
+
+		assertTrue(collections.tableFor(alice, null).matches("vector_store_alice_" + HASH));
+		assertEquals(collections.tableFor(alice, null), collections.tableFor(alice, "  "));
+		assertEquals(collections.tableFor(alice, "Contracts 2024"), collections.tableFor(alice, " Contracts 2024 "));
+		assertNotEquals(collections.tableFor(alice, "a"), collections.tableFor(() -> "bob", "a"));
+		assertTrue(collections.tableFor(alice, "חוזים").matches("vector_store_alice_" + HASH));
+	}
+
+	@Test
+	void rejectsInvalidCollectionNames() {
+		VectorStoreCollections collections = ownerCollections();
+
+		for (String name : new String[] { "../other", "a;drop", "x".repeat(65), "tab\tname" }) {
+			ResponseStatusException e = assertThrows(ResponseStatusException.class,
+					() -> collections.tableFor(() -> "alice", name), name);
+			assertEquals(400, e.getStatusCode().value());
+		}
+	}
+
+	@Test
+	void registersUnderTheOwnersLockBeforeCreatingTheTable() {
+		FakeJdbc jdbc = new FakeJdbc(1, false);
+		VectorStore store = new VectorStoreCollections(VectorStoreCollections.Mode.OWNER, "public", "vector_store",
+				null, table -> new FakeJdbcStore(table), jdbc, 20).storeFor(() -> "alice", "docs");
+
+		assertTrue(((FakeJdbcStore) store).table().startsWith("vector_store_alice_docs_"));
+		assertEquals(List.of("to_regclass", "pg_advisory_xact_lock", "INSERT"), jdbc.statements);
+		assertEquals(1, jdbc.commits);
+	}
+
+	@Test
+	void refusesTheCollectionOverTheLimit() {
+		FakeJdbc jdbc = new FakeJdbc(0, false);
+		VectorStoreCollections collections = new VectorStoreCollections(VectorStoreCollections.Mode.OWNER, "public",
+				"vector_store", null, table -> new FakeJdbcStore(table), jdbc, 20);
+
+		ResponseStatusException e = assertThrows(ResponseStatusException.class,
+				() -> collections.storeFor(() -> "alice", "docs"));
+		assertEquals(409, e.getStatusCode().value());
+	}
+
+	@Test
+	void opensATableRegisteredConcurrently() {
+		FakeJdbc jdbc = new FakeJdbc(0, true);
+		VectorStore store = new VectorStoreCollections(VectorStoreCollections.Mode.OWNER, "public", "vector_store",
+				null, table -> new FakeJdbcStore(table), jdbc, 20).storeFor(() -> "alice", "docs");
+
+		assertNotNull(store);
+		assertEquals(List.of("to_regclass", "pg_advisory_xact_lock", "INSERT", "EXISTS"), jdbc.statements);
+	}
+
+	private static VectorStoreCollections ownerCollections() {
+		return new VectorStoreCollections(VectorStoreCollections.Mode.OWNER, "public", "vector_store", null,
+				table -> null, null, 20);
+	}
+
+	private record FakeJdbcStore(String table) implements VectorStore {
+
+		@Override
+		public void add(List<Document> documents) {
+		}
+
+		@Override
+		public void delete(List<String> idList) {
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			return List.of();
+		}
+	}
+
+	/**
+	 * Records the statements {@link VectorStoreCollections} runs, over a connection that only
+	 * counts commits. No table exists yet; the INSERT affects {@code inserted} rows.
+	 */
+	private static final class FakeJdbc extends JdbcTemplate {
+
+		private final int inserted;
+		private final boolean registered;
+		private final List<String> statements = new ArrayList<>();
+		private int commits;
+
+		FakeJdbc(int inserted, boolean registered) {
+			this.inserted = inserted;
+			this.registered = registered;
+			setDataSource((DataSource) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { DataSource.class }, (ds, method, args) -> switch (method.getName()) {
+						case "getConnection" -> connection();
+						case "hashCode" -> System.identityHashCode(ds);
+						case "equals" -> ds == args[0];
+						default -> null;
+					}));
+		}
+
+		private Connection connection() {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] { Connection.class }, (con, method, args) -> {
+						if (method.getName().equals("commit")) {
+							commits++;
+						}
+						return method.getReturnType() == boolean.class ? Boolean.FALSE
+								: method.getReturnType() == int.class ? 0 : null;
+					});
+		}
+
+		@Override
+		public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+			statements.add(sql.contains("to_regclass") ? "to_regclass" : "EXISTS");
+			return requiredType.cast(sql.contains("to_regclass") ? Boolean.FALSE : registered);
+		}
+
+		@Override
+		public List<Map<String, Object>> queryForList(String sql, Object... args) {
+			statements.add("pg_advisory_xact_lock");
+			return List.of();
+		}
+
+		@Override
+		public int update(String sql, Object... args) {
+			statements.add("INSERT");
+			assertEquals(20, args[4]);
+			return inserted;
+		}
+	}
+}
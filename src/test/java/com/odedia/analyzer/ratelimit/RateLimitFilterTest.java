@@ -0,0 +1,138 @@
+package com.odedia.analyzer.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+	private final RateLimiter limiter = new RateLimiter(environment(), null, new SimpleMeterRegistry(), true,
+			"memory", Duration.ofHours(1));
+	private final RateLimitFilter filter = new RateLimitFilter(limiter);
+
+	@AfterEach
+	void tearDown() {
+		limiter.destroy();
+	}
+
+	@Test
+	void takesOneQueryPerQueryRequest() throws Exception {
+		MockHttpServletResponse first = run(request("POST", "/document/query", "alice"));
+		assertEquals(200, first.getStatus());
+		assertEquals("2", first.getHeader("X-RateLimit-Limit"));
+		assertEquals("1", first.getHeader("X-RateLimit-Remaining"));
+
+		assertEquals(200, run(request("POST", "/document/query/stream", "alice")).getStatus());
+
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse refused = new MockHttpServletResponse();
+		filter.doFilter(request("POST", "/document/query", "alice"), refused, chain);
+		assertEquals(429, refused.getStatus());
+		assertNotNull(refused.getHeader("Retry-After"));
+		assertNull(chain.getRequest());
+	}
+
+	@Test
+	void budgetsArePerUser() throws Exception {
+		run(request("POST", "/document/query", "alice"));
+		run(request("POST", "/document/query", "alice"));
+
+		assertEquals(429, run(request("POST", "/document/query", "alice")).getStatus());
+		assertEquals(200, run(request("POST", "/document/query", "bob")).getStatus());
+	}
+
+	@Test
+	void takesUploadsByContentLength() throws Exception {
+		assertEquals(200, run(upload("POST", "/document/analyze", 600)).getStatus());
+		assertEquals(429, run(upload("PUT", "/document/uploads/42", 600)).getStatus());
+		assertEquals(200, run(upload("POST", "/document/import", 400)).getStatus());
+	}
+
+	@Test
+	void refusesAnUploadLargerThanTheWholeBudget() throws Exception {
+		MockHttpServletResponse response = run(upload("POST", "/document/analyze", 1001));
+
+		assertEquals(413, response.getStatus());
+		assertNull(response.getHeader("Retry-After"));
+	}
+
+	@Test
+	void requiresContentLengthForUploads() throws Exception {
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request("PUT", "/document/uploads/42", "alice"), response, chain);
+
+		assertEquals(411, response.getStatus());
+		assertNull(chain.getRequest());
+	}
+
+	@Test
+	void letsChunkedUploadsThroughWhenDisabled() throws Exception {
+		RateLimiter disabled = new RateLimiter(environment(), null, new SimpleMeterRegistry(), false, "memory",
+				Duration.ofHours(1));
+		MockFilterChain chain = new MockFilterChain();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new RateLimitFilter(disabled).doFilter(request("POST", "/document/analyze", "alice"), response, chain);
+
+		assertEquals(200, response.getStatus());
+		assertNotNull(chain.getRequest());
+	}
+
+	@Test
+	void leavesOtherRequestsAndAnonymousCallersAlone() throws Exception {
+		run(request("POST", "/document/query", "alice"));
+		run(request("POST", "/document/query", "alice"));
+
+		MockHttpServletResponse list = run(request("GET", "/document/list", "alice"));
+		assertEquals(200, list.getStatus());
+		assertNull(list.getHeader("X-RateLimit-Limit"));
+		assertEquals(200, run(request("POST", "/document/query", null)).getStatus());
+	}
+
+	private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String method, String uri, String user) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		if (user != null) {
+			request.setUserPrincipal(() -> user);
+		}
+		return request;
+	}
+
+	private static MockHttpServletRequest upload(String method, String uri, int bytes) {
+		MockHttpServletRequest request = request(method, uri, "alice");
+		request.setContent(new byte[bytes]);
+		return request;
+	}
+
+	private static StandardEnvironment environment() {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setConversionService(new ApplicationConversionService());
+		environment.getPropertySources().addFirst(new MapPropertySource("test", Map.of(
+				"app.ratelimit.queries.capacity", "2",
+				"app.ratelimit.queries.period", "1h",
+				"app.ratelimit.uploadBytes.capacity", "1000B",
+				"app.ratelimit.uploadBytes.period", "1h",
+				"app.ratelimit.embeddedTokens.capacity", "1000",
+				"app.ratelimit.embeddedTokens.period", "1h")));
+		return environment;
+	}
+}
@@ -0,0 +1,90 @@
+package com.odedia.analyzer.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private static final long SECOND = 1_000_000;
+
+	/** Ten tokens refilled over ten seconds: one token per second. */
+	private final TokenBucket bucket = new TokenBucket(10, 10 * SECOND, 0);
+
+	@Test
+	void takesUpToCapacityThenRefuses() {
+		assertEquals(0, bucket.tryAcquire(10, 0));
+		assertEquals(SECOND, bucket.tryAcquire(1, 0));
+		assertEquals(0, bucket.remaining(0));
+	}
+
+	@Test
+	void refillsEvenlyOverThePeriod() {
+		assertEquals(0, bucket.tryAcquire(10, 0));
+		assertEquals(0, bucket.tryAcquire(1, SECOND));
+		assertEquals(SECOND, bucket.tryAcquire(1, SECOND));
+		assertEquals(5, bucket.remaining(6 * SECOND));
+		assertEquals(10, bucket.remaining(20 * SECOND));
+	}
+
+	@Test
+	void requestLargerThanCapacityNeverFits() {
+		assertEquals(Long.MAX_VALUE, bucket.tryAcquire(11, 0));
+		assertEquals(Long.MAX_VALUE, bucket.check(11, 0));
+		assertEquals(10, bucket.remaining(0));
+	}
+
+	@Test
+	void chargeGoesIntoDebtUntilRefilled() {
+		bucket.charge(15, 0);
+		assertEquals(0, bucket.remaining(0));
+		assertEquals(5 * SECOND, bucket.check(0, 0));
+		assertEquals(6 * SECOND, bucket.tryAcquire(1, 0));
+		assertEquals(0, bucket.check(0, 5 * SECOND));
+		assertEquals(SECOND, bucket.tryAcquire(1, 5 * SECOND));
+		assertEquals(0, bucket.tryAcquire(1, 6 * SECOND));
+	}
+
+	@Test
+	void checkTakesNothing() {
+		assertEquals(0, bucket.check(10, 0));
+		assertEquals(10, bucket.remaining(0));
+		assertEquals(0, bucket.tryAcquire(4, 0));
+		assertEquals(6, bucket.remaining(0));
+		assertEquals(SECOND, bucket.check(7, 0));
+		assertEquals(6, bucket.remaining(0));
+	}
+
+	@Test
+	void pendingCountsWhatWasTaken() {
+		bucket.tryAcquire(2, 0);
+		bucket.charge(3, 0);
+		assertEquals(5 * SECOND, bucket.drainPending());
+		assertEquals(0, bucket.drainPending());
+	}
+
+	@Test
+	void retiresOnlyWhenFullAndShared() {
+		bucket.tryAcquire(2, 0);
+		assertFalse(bucket.retire(0));
+		assertFalse(bucket.retire(2 * SECOND));
+		bucket.drainPending();
+		assertFalse(bucket.retire(SECOND));
+		assertTrue(bucket.retire(2 * SECOND));
+		assertTrue(bucket.retire(2 * SECOND));
+	}
+
+	@Test
+	void retiredBucketTakesNothing() {
+		assertTrue(bucket.retire(0));
+
+		assertEquals(TokenBucket.RETIRED, bucket.tryAcquire(1, SECOND));
+		assertFalse(bucket.charge(1, SECOND));
+		bucket.merge(5 * SECOND);
+		assertEquals(10, bucket.remaining(SECOND));
+		assertEquals(0, bucket.check(10, SECOND));
+		assertEquals(0, bucket.drainPending());
+	}
+}
@@ -0,0 +1,81 @@
+package com.odedia.analyzer.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+class ChildChunkSplitterTest {
+
+	@Test
+	void rejectsOverlapOfHalfAChildOrMore() {
+		assertThrows(IllegalArgumentException.class, () -> new ChildChunkSplitter(100, 50));
+		assertThrows(IllegalArgumentException.class, () -> new ChildChunkSplitter(0, 0));
+		assertThrows(IllegalArgumentException.class, () -> new ChildChunkSplitter(100, -1));
+	}
+
+	@Test
+	void shortParentIsOneChildWithParentMetadata() {
+		Document parent = new Document("short page", Map.of("page", 3));
+		List<Document> children = new ChildChunkSplitter(100, 20).split(parent);
+
+		assertEquals(1, children.size());
+		Document child = children.get(0);
+		assertEquals("short page", child.getText());
+		assertEquals(3, child.getMetadata().get("page"));
+		assertEquals(parent.getId(), child.getMetadata().get(ChildChunkSplitter.PARENT_ID));
+		assertEquals(1, child.getMetadata().get(ChildChunkSplitter.CHILD));
+	}
+
+	@Test
+	void splitsAtWordsWithOverlap() {
+		List<String> words = words(200);
+		List<Document> children = new ChildChunkSplitter(100, 20).split(new Document(String.join(" ", words)));
+
+		assertTrue(children.size() > 1);
+		Set<String> covered = new LinkedHashSet<>();
+		for (int i = 0; i < children.size(); i++) {
+			String text = children.get(i).getText();
+			assertTrue(text.length() <= 100, text);
+			assertEquals(i + 1, children.get(i).getMetadata().get(ChildChunkSplitter.CHILD));
+			for (String word : text.split(" ")) {
+				assertTrue(words.contains(word), "split word: " + word);
+				covered.add(word);
+			}
+			if (i > 0) {
+				String first = text.substring(0, text.indexOf(' '));
+				assertTrue(children.get(i - 1).getText().contains(first), "no overlap before child " + (i + 1));
+			}
+		}
+		assertEquals(new LinkedHashSet<>(words), covered);
+	}
+
+	@Test
+	void textWithoutWhitespaceIsCutAtChildSize() {
+		List<Document> children = new ChildChunkSplitter(100, 20).split(new Document("x".repeat(1000)));
+
+		assertEquals(10, children.size());
+		children.forEach(child -> assertEquals(100, child.getText().length()));
+	}
+
+	@Test
+	void blankTextHasNoChildren() {
+		assertEquals(0, new ChildChunkSplitter(10, 2).split(new Document(" ".repeat(50))).size());
+	}
+
+	private static List<String> words(int count) {
+		List<String> words = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			words.add(String.format("w%04d", i));
+		}
+		return words;
+	}
+}
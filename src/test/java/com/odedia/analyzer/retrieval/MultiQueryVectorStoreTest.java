@@ -0,0 +1,142 @@
+package com.odedia.analyzer.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import reactor.core.publisher.Mono;
+
+class MultiQueryVectorStoreTest {
+
+	private final RankedResults delegate = new RankedResults();
+
+	@Test
+	void fusesRankingsByReciprocalRank() {
+		delegate.rank("question", "a", "b", "c");
+		delegate.rank("sub 1", "b", "c");
+		delegate.rank("sub 2", "b");
+
+		List<Document> results = store(q -> Mono.just(List.of("sub 1", "sub 2")), 1000).similaritySearch(request(10));
+
+		assertEquals(List.of("b", "c", "a"), ids(results));
+		assertEquals(3, delegate.queries.size());
+	}
+
+	@Test
+	void stopsAtTopK() {
+		delegate.rank("question", "a", "b", "c");
+		delegate.rank("sub 1", "b", "c");
+
+		assertEquals(List.of("b", "c"), ids(store(q -> Mono.just(List.of("sub 1")), 1000).similaritySearch(request(2))));
+	}
+
+	@Test
+	void stopsAtTheContextBudgetButKeepsTheFirstResult() {
+		delegate.rank("question", "a", "b", "c");
+
+		// each text is 9 characters
+		assertEquals(List.of("a", "b"), ids(store(q -> Mono.just(List.of()), 20).similaritySearch(request(10))));
+		assertEquals(List.of("a"), ids(store(q -> Mono.just(List.of()), 5).similaritySearch(request(10))));
+	}
+
+	@Test
+	void searchesWithTheOriginalQueryWhenExpansionFails() {
+		delegate.rank("question", "a", "b");
+
+		List<Document> results = store(q -> Mono.error(new IllegalStateException("model down")), 1000)
+				.similaritySearch(request(10));
+
+		assertEquals(List.of("a", "b"), ids(results));
+		assertEquals(List.of("question"), List.copyOf(delegate.queries));
+	}
+
+	@Test
+	void cancelsExpansionThatTimesOut() {
+		delegate.rank("question", "a", "b");
+		delegate.rank("sub 1", "c");
+		AtomicBoolean cancelled = new AtomicBoolean();
+
+		List<Document> results = store(q -> Mono.delay(Duration.ofSeconds(5))
+				.map(tick -> List.of("sub 1"))
+				.doOnCancel(() -> cancelled.set(true)), 1000).similaritySearch(request(10));
+
+		assertEquals(List.of("a", "b"), ids(results));
+		assertTrue(cancelled.get());
+	}
+
+	@Test
+	void startsExpansionPerSearch() {
+		delegate.rank("question", "a");
+		AtomicInteger expansions = new AtomicInteger();
+		MultiQueryVectorStore store = store(q -> {
+			expansions.incrementAndGet();
+			return Mono.just(List.of());
+		}, 1000);
+
+		store.similaritySearch(request(10));
+		store.similaritySearch(request(10));
+
+		assertEquals(2, expansions.get());
+	}
+
+	private MultiQueryVectorStore store(Function<String, Mono<List<String>>> expander, int contextChars) {
+		return new MultiQueryVectorStore(delegate, expander, contextChars, Duration.ofMillis(200));
+	}
+
+	private static SearchRequest request(int topK) {
+		return SearchRequest.builder().query("question").topK(topK).build();
+	}
+
+	private static List<String> ids(List<Document> documents) {
+		return documents.stream().map(Document::getId).toList();
+	}
+
+	private static final class RankedResults implements VectorStore {
+
+		private final Map<String, List<Document>> rankings = new ConcurrentHashMap<>();
+		private final Collection<String> queries = new ConcurrentLinkedQueue<>();
+
+		void rank(String query, String... ids) {
+			rankings.put(query, Arrays.stream(ids)
+					.map(id -> Document.builder().id(id).text("text of " + id).build())
+					.toList());
+		}
+
+		@Override
+		public void add(List<Document> documents) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(List<String> idList) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			queries.add(request.getQuery());
+			return rankings.getOrDefault(request.getQuery(), List.of());
+		}
+	}
+}
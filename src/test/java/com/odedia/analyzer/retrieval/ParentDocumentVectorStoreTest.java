@@ -0,0 +1,109 @@
+package com.odedia.analyzer.retrieval;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+class ParentDocumentVectorStoreTest {
+
+	private final List<Document> childHits = List.of(
+			child("c1", "p1", 2, 0.9),
+			child("c2", "p1", 1, 0.8),
+			child("c3", "p2", 1, 0.7),
+			Document.builder().id("legacy").text("legacy chunk").score(0.6).build(),
+			child("c4", "deleted", 1, 0.5));
+
+	private final List<Collection<String>> lookups = new ArrayList<>();
+
+	private final ParentDocumentStore parents = new ParentDocumentStore(null, null, null) {
+
+		@Override
+		public Map<String, Document> findByIds(Collection<String> ids) {
+			lookups.add(List.copyOf(ids));
+			Map<String, Document> found = new HashMap<>();
+			for (String id : ids) {
+				if (!id.equals("deleted")) {
+					found.put(id, Document.builder().id(id).text("parent " + id).metadata("page", 7).build());
+				}
+			}
+			return found;
+		}
+	};
+
+	@Test
+	void answersWithParentsOfTheBestChildren() {
+		List<Document> results = new ParentDocumentVectorStore(new FixedResults(childHits), parents, 10)
+				.similaritySearch(SearchRequest.builder().query("q").build());
+
+		assertEquals(List.of("p1", "p2", "legacy", "c4"), results.stream().map(Document::getId).toList());
+		assertEquals(List.of(List.of("p1", "p2", "deleted")), lookups);
+
+		Document p1 = results.get(0);
+		assertEquals("parent p1", p1.getText());
+		assertEquals(0.9, p1.getScore());
+		assertEquals(2, p1.getMetadata().get("matchedChunk"));
+		assertEquals(7, p1.getMetadata().get("page"));
+		assertEquals("legacy chunk", results.get(2).getText());
+		assertEquals("child c4", results.get(3).getText());
+	}
+
+	@Test
+	void capsTheNumberOfParents() {
+		List<Document> results = new ParentDocumentVectorStore(new FixedResults(childHits), parents, 2)
+				.similaritySearch(SearchRequest.builder().query("q").build());
+
+		assertEquals(List.of("p1", "p2"), results.stream().map(Document::getId).toList());
+	}
+
+	@Test
+	void skipsTheLookupWithoutParentHits() {
+		List<Document> legacy = List.of(Document.builder().id("legacy").text("legacy chunk").build());
+		List<Document> results = new ParentDocumentVectorStore(new FixedResults(legacy), parents, 10)
+				.similaritySearch(SearchRequest.builder().query("q").build());
+
+		assertEquals(legacy, results);
+		assertEquals(List.of(List.of()), lookups);
+	}
+
+	private static Document child(String id, String parentId, int index, double score) {
+		return Document.builder()
+				.id(id)
+				.text("child " + id)
+				.metadata(Map.of(ChildChunkSplitter.PARENT_ID, parentId, ChildChunkSplitter.CHILD, index))
+				.score(score)
+				.build();
+	}
+
+	private record FixedResults(List<Document> results) implements VectorStore {
+
+		@Override
+		public void add(List<Document> documents) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(List<String> idList) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void delete(Filter.Expression filterExpression) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Document> similaritySearch(SearchRequest request) {
+			return results;
+		}
+	}
+}
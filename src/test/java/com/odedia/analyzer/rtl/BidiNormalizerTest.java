@@ -0,0 +1,47 @@
+package com.odedia.analyzer.rtl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BidiNormalizerTest {
+
+	@Test
+	void reversesVisualHebrew() {
+		assertEquals("שלום", BidiNormalizer.toLogical("םולש"));
+	}
+
+	@Test
+	void keepsNumbersAndLatinRunsInOrder() {
+		assertEquals("בשנת 2024", BidiNormalizer.toLogical("2024 תנשב"));
+		assertEquals("Spring AI עבודה עם", BidiNormalizer.toLogical("Spring AI םע הדובע"));
+	}
+
+	@Test
+	void mirrorsBracketsInRightToLeftRuns() {
+		assertEquals("(שלום)", BidiNormalizer.toLogical("(םולש)"));
+	}
+
+	@Test
+	void keepsSurrogatePairsWhole() {
+		assertEquals("שלום 😀", BidiNormalizer.toLogical("😀 םולש"));
+	}
+
+	@Test
+	void copiesLinesWithoutRightToLeftText() {
+		String line = "Hello, (world) 42";
+		assertEquals(line, BidiNormalizer.toLogical(line));
+	}
+
+	@Test
+	void appendsOnlyTheGivenRange() {
+		StringBuilder out = new StringBuilder("> ");
+		BidiNormalizer.appendLogical("abc םולש def", 4, 8, out);
+		assertEquals("> שלום", out.toString());
+	}
+
+	@Test
+	void normalizesEachLineAndKeepsLineBreaks() {
+		assertEquals("שלום\nhello\nעולם", BidiNormalizer.normalizeLines("םולש\r\nhello\nםלוע"));
+	}
+}
@@ -0,0 +1,101 @@
+package com.odedia.analyzer.rtl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.text.TextPosition;
+import org.apache.pdfbox.util.Matrix;
+import org.junit.jupiter.api.Test;
+
+import com.odedia.analyzer.rtl.HeaderFooterDetector.Boilerplate;
+
+class HeaderFooterDetectorTest {
+
+	private static final float HEIGHT = 800;
+
+	@Test
+	void findsRunningHeaderAndNumberedFooter() {
+		List<PageLayout> pages = new ArrayList<>();
+		for (int p = 1; p <= 5; p++) {
+			pages.add(page(line("Annual Report", 40), line("Body text of page " + p, 300), line("Page " + p + " of 5", 780)));
+		}
+
+		Boilerplate boilerplate = HeaderFooterDetector.detect(pages);
+
+		assertEquals(List.of("Annual Report"), boilerplate.getHeaders());
+		assertEquals(List.of("Page 1 of 5"), boilerplate.getFooters());
+		for (int p = 0; p < pages.size(); p++) {
+			List<TextLine> lines = pages.get(p).lines();
+			assertTrue(boilerplate.isBoilerplate(p, lines.get(0)));
+			assertFalse(boilerplate.isBoilerplate(p, lines.get(1)));
+			assertTrue(boilerplate.isBoilerplate(p, lines.get(2)));
+			assertEquals(40f, boilerplate.headerBottom(p));
+			assertEquals(770f, boilerplate.footerTop(p));
+		}
+	}
+
+	@Test
+	void findsAlternatingOddAndEvenHeaders() {
+		List<PageLayout> pages = new ArrayList<>();
+		for (int p = 1; p <= 6; p++) {
+			pages.add(page(line(p % 2 == 1 ? "Book Title" : "Chapter One", 40), line("Body " + p, 300)));
+		}
+
+		assertEquals(List.of("Book Title", "Chapter One"), HeaderFooterDetector.detect(pages).getHeaders());
+	}
+
+	@Test
+	void ignoresLinesOnTooFewPages() {
+		List<PageLayout> pages = new ArrayList<>();
+		pages.add(page(line("Title Page", 40), line("Body", 300)));
+		for (int p = 2; p <= 5; p++) {
+			pages.add(page(line("Body " + p, 300)));
+		}
+
+		Boilerplate boilerplate = HeaderFooterDetector.detect(pages);
+
+		assertTrue(boilerplate.getHeaders().isEmpty());
+		assertFalse(boilerplate.hasBoilerplate(0));
+		assertEquals(-1f, boilerplate.headerBottom(0));
+	}
+
+	@Test
+	void ignoresRepeatedTextAtDifferentHeights() {
+		List<PageLayout> pages = new ArrayList<>();
+		for (int p = 0; p < 5; p++) {
+			pages.add(page(line("Chapter One", 30 + 20 * p), line("Body " + p, 300)));
+		}
+
+		assertTrue(HeaderFooterDetector.detect(pages).getHeaders().isEmpty());
+	}
+
+	@Test
+	void needsAtLeastThreePages() {
+		List<PageLayout> pages = List.of(page(line("Annual Report", 40)), page(line("Annual Report", 40)));
+
+		Boilerplate boilerplate = HeaderFooterDetector.detect(pages);
+
+		assertTrue(boilerplate.getHeaders().isEmpty());
+		assertFalse(boilerplate.hasBoilerplate(0));
+	}
+
+	private static PageLayout page(TextLine... lines) {
+		return new PageLayout(List.of(lines), HEIGHT);
+	}
+
+	/** One line of 6pt-wide, 10pt-high glyphs with its baseline {@code baseline} points from the top. */
+	private static TextLine line(String text, float baseline) {
+		List<TextPosition> glyphs = new ArrayList<>(text.length());
+		float x = 50;
+		for (char c : text.toCharArray()) {
+			glyphs.add(new TextPosition(0, 600, HEIGHT, Matrix.getTranslateInstance(x, HEIGHT - baseline), x + 6,
+					HEIGHT - baseline, 10, 6, 3, String.valueOf(c), new int[] { c }, null, 10, 10));
+			x += 6;
+		}
+		return TextLine.group(glyphs).get(0);
+	}
+}
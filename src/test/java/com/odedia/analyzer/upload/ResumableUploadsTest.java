@@ -0,0 +1,217 @@
+package com.odedia.analyzer.upload;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.odedia.analyzer.db.VectorStoreCollections;
+import com.odedia.analyzer.services.DocumentIngestionService;
+
+class ResumableUploadsTest {
+
+	private static final Principal ALICE = () -> "alice";
+	private static final Principal BOB = () -> "bob";
+
+	@TempDir
+	Path stagingDir;
+
+	private final Map<String, byte[]> ingested = new ConcurrentHashMap<>();
+	private final byte[] content = new byte[200_000];
+	private ResumableUploads uploads;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		new Random(42).nextBytes(content);
+		DocumentIngestionService ingestion = new DocumentIngestionService(null, null, null) {
+
+			@Override
+			public IngestedFile ingest(MultipartFile file, boolean visualRtl, VectorStore vectorStore, String table,
+					String owner) throws IOException {
+				ingested.put(file.getOriginalFilename(), file.getBytes());
+				return new IngestedFile("application/pdf", "en", 3);
+			}
+		};
+		VectorStoreCollections collections = new VectorStoreCollections(VectorStoreCollections.Mode.SHARED, "public",
+				"vector_store", null, table -> null, null, 20);
+		uploads = new ResumableUploads(ingestion, collections, stagingDir.toString(), DataSize.ofMegabytes(1),
+				Duration.ofHours(1), 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		uploads.destroy();
+	}
+
+	@Test
+	void appendsPartsByOffsetAndIngestsTheVerifiedFile() throws Exception {
+		String id = start(sha256(content));
+
+		assertEquals(100_000L, write(id, 0, Arrays.copyOfRange(content, 0, 100_000)).get("offset"));
+		assertEquals((long) content.length, write(id, 100_000, Arrays.copyOfRange(content, 100_000, content.length))
+				.get("offset"));
+		uploads.complete(ALICE, id);
+
+		Map<String, Object> status = awaitIngested(id);
+		assertEquals(ResumableUploads.State.DONE, status.get("state"));
+		assertEquals(3, status.get("chunks"));
+		assertArrayEquals(content, ingested.get("report.pdf"));
+		try (var files = Files.list(stagingDir)) {
+			assertEquals(0L, files.count());
+		}
+	}
+
+	@Test
+	void resumesAfterAPartIsCutOff() throws Exception {
+		String id = start(sha256(content));
+		InputStream cutOff = new SequenceInputStream(new ByteArrayInputStream(content, 0, 1000), new InputStream() {
+
+			@Override
+			public int read() throws IOException {
+				throw new IOException("connection reset");
+			}
+		});
+
+		assertThrows(IOException.class, () -> uploads.write(ALICE, id, 0, cutOff));
+		assertEquals(1000L, uploads.status(ALICE, id).get("offset"));
+
+		write(id, 1000, Arrays.copyOfRange(content, 1000, content.length));
+		uploads.complete(ALICE, id);
+		awaitIngested(id);
+		assertArrayEquals(content, ingested.get("report.pdf"));
+	}
+
+	@Test
+	void rejectsAPartAtTheWrongOffset() throws Exception {
+		String id = start(sha256(content));
+		write(id, 0, Arrays.copyOfRange(content, 0, 10));
+
+		assertStatus(409, () -> write(id, 0, content));
+		assertStatus(409, () -> write(id, 20, content));
+		assertEquals(10L, uploads.status(ALICE, id).get("offset"));
+	}
+
+	@Test
+	void rejectsBytesPastTheDeclaredSize() {
+		String id = start(sha256(content));
+		byte[] tooLong = Arrays.copyOf(content, content.length + 1);
+
+		assertStatus(400, () -> write(id, 0, tooLong));
+	}
+
+	@Test
+	void completeNeedsEveryByte() throws Exception {
+		String id = start(sha256(content));
+		write(id, 0, Arrays.copyOfRange(content, 0, 10));
+
+		assertStatus(409, () -> uploads.complete(ALICE, id));
+	}
+
+	@Test
+	void checksumMismatchRestartsAtOffsetZero() throws Exception {
+		String id = start(sha256(content));
+		byte[] corrupted = content.clone();
+		corrupted[123] ^= 1;
+		write(id, 0, corrupted);
+
+		assertStatus(422, () -> uploads.complete(ALICE, id));
+		Map<String, Object> status = uploads.status(ALICE, id);
+		assertEquals(0L, status.get("offset"));
+		assertEquals(ResumableUploads.State.RECEIVING, status.get("state"));
+
+		write(id, 0, content);
+		uploads.complete(ALICE, id);
+		awaitIngested(id);
+		assertArrayEquals(content, ingested.get("report.pdf"));
+	}
+
+	@Test
+	void validatesTheUploadOnStart() {
+		assertStatus(400, () -> uploads.start(ALICE, null, " ", 10, sha256(content), false));
+		assertStatus(413, () -> uploads.start(ALICE, null, "a.pdf", 0, sha256(content), false));
+		assertStatus(413, () -> uploads.start(ALICE, null, "a.pdf", DataSize.ofMegabytes(1).toBytes() + 1,
+				sha256(content), false));
+		assertStatus(400, () -> uploads.start(ALICE, null, "a.pdf", 10, "not-a-checksum", false));
+	}
+
+	@Test
+	void anotherUsersUploadIsNotFound() {
+		String id = start(sha256(content));
+
+		assertStatus(404, () -> uploads.status(BOB, id));
+		assertStatus(404, () -> uploads.write(BOB, id, 0, new ByteArrayInputStream(content)));
+	}
+
+	@Test
+	void cancelDeletesTheStagedBytes() throws Exception {
+		String id = start(sha256(content));
+		write(id, 0, Arrays.copyOfRange(content, 0, 10));
+
+		uploads.cancel(ALICE, id);
+
+		assertStatus(404, () -> uploads.status(ALICE, id));
+		try (var files = Files.list(stagingDir)) {
+			assertEquals(0L, files.count());
+		}
+	}
+
+	private String start(String sha256) {
+		return (String) uploads.start(ALICE, null, "report.pdf", content.length, sha256, false).get("uploadId");
+	}
+
+	private Map<String, Object> write(String id, long offset, byte[] part) throws IOException {
+		return uploads.write(ALICE, id, offset, new ByteArrayInputStream(part));
+	}
+
+	private Map<String, Object> awaitIngested(String id) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			Map<String, Object> status = uploads.status(ALICE, id);
+			if (status.get("state") != ResumableUploads.State.INGESTING) {
+				return status;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Upload " + id + " is still ingesting");
+	}
+
+	private static void assertStatus(int status, Call call) {
+		ResponseStatusException e = assertThrows(ResponseStatusException.class, call::run);
+		assertEquals(status, e.getStatusCode().value());
+	}
+
+	private static String sha256(byte[] bytes) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private interface Call {
+		void run() throws Exception;
+	}
+}